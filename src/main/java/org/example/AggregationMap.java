@@ -0,0 +1,40 @@
+package org.example;
+
+/*
+  GROUP BY state: key -> running count, sum, min and max of the values aggregated
+  for that key. aggregate() updates the aggregates of a known key where they are
+  stored, or adds the key with a count of 1. Keys are the SetBackend key types:
+  Integer, String, byte[] (compared by content) and Record through
+  AggregationMapType.createRecordMap. Instances are created through
+  AggregationMapType, are not thread safe, and must be closed to release their
+  off-heap memory.
+ */
+public interface AggregationMap<K> extends AutoCloseable {
+  // positions in the array filled by get()
+  int COUNT = 0;
+  int SUM = 1;
+  int MIN = 2;
+  int MAX = 3;
+  int NUM_AGGREGATES = 4;
+
+  void aggregate(K key, long value);
+
+  // copies the aggregates of key into aggregates[COUNT..MAX], false when key has no group
+  boolean get(K key, long[] aggregates);
+
+  // every group with its aggregates, e.g. to emit the GROUP BY result
+  void forEach(GroupConsumer<K> consumer);
+
+  @FunctionalInterface
+  interface GroupConsumer<K> {
+    void accept(K key, long count, long sum, long min, long max);
+  }
+
+  long size();
+
+  // bytes held by the map outside the java heap
+  long memoryUsed();
+
+  @Override
+  void close();
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+
+/*
+  Factory for every AggregationMap we benchmark, used as a JMH @Param as
+  SetBackendType is for sets.
+ */
+public enum AggregationMapType {
+  CHRONICLE {
+    @Override
+    public <K> AggregationMap<K> create(Class<K> keyClass, long entries, K averageKey) {
+      return new ChronicleAggregationMap<>(keyClass, entries, averageKey);
+    }
+
+    @Override
+    public AggregationMap<Record> createRecordMap(RecordCodec codec, long entries, Record averageKey) {
+      return new ChronicleAggregationMap<>(ChronicleMapBuilder.of(Record.class, GroupAggregates.class)
+          .keyMarshaller(new RecordMarshaller(codec))
+          .averageKey(averageKey)
+          .entries(entries));
+    }
+  },
+  MAPDB {
+    @Override
+    public <K> AggregationMap<K> create(Class<K> keyClass, long entries, K averageKey) {
+      return new MapDBAggregationMap<>(keyClass);
+    }
+
+    @Override
+    public AggregationMap<Record> createRecordMap(RecordCodec codec, long entries, Record averageKey) {
+      return new MapDBAggregationMap<>(new RecordSerializer(codec));
+    }
+  },
+  OFFHEAP {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K> AggregationMap<K> create(Class<K> keyClass, long entries, K averageKey) {
+      if (keyClass == Integer.class) {
+        return (AggregationMap<K>) new OffHeapAggregationMap.IntKeys(entries);
+      }
+      if (keyClass == String.class) {
+        return (AggregationMap<K>) new OffHeapAggregationMap.StringKeys(entries);
+      }
+      if (keyClass == byte[].class) {
+        return (AggregationMap<K>) new OffHeapAggregationMap.ByteArrayKeys(entries);
+      }
+      throw new IllegalArgumentException("OFFHEAP aggregation does not support keys of " + keyClass);
+    }
+
+    @Override
+    public AggregationMap<Record> createRecordMap(RecordCodec codec, long entries, Record averageKey) {
+      return new OffHeapAggregationMap.RecordKeys(codec, entries);
+    }
+  };
+
+  /*
+    entries is the expected number of groups, averageKey a sample key of average
+    size for variable length keys (null for Integer). Backends which size
+    themselves dynamically ignore both.
+   */
+  public abstract <K> AggregationMap<K> create(Class<K> keyClass, long entries, K averageKey);
+
+  // Record keys in the RecordCodec row layout
+  public abstract AggregationMap<Record> createRecordMap(RecordCodec codec, long entries, Record averageKey);
+}
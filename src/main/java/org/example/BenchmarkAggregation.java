@@ -0,0 +1,215 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  GROUP BY key -> (count, sum, min, max) against every AggregationMap
+  Workloads are the collision inserts of BenchmarkSetBackends with a value per row:
+  where an insert of a known key was a no-op for a set, here it updates the
+  aggregates of its group, so the share of updates is set by the collisions
+  (COLLISION_FACTOR rows per group for int and Record keys). Every invocation
+  aggregates into a fresh, empty map (see BenchmarkSetBackends.FreshSet) and a
+  NativeLeakTracker fails the run if an iteration does not give its memory back.
+  Keys and values are generated up front by a seeded RandomUtils.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkAggregation {
+  private static final int GB_TO_BYTES = 1024*1024*1024; // conversion constant
+  private static final int COLLISION_FACTOR = 100;  //about COLLISION_FACTOR many rows per group for collision workloads
+  private static final ColumnType[] RECORD_COLUMNS = {ColumnType.INT, ColumnType.STRING};
+  private static final int RECORD_BYTES = 16; // INT value, STRING offset and a short string
+
+  @Param({"0.005"}) //GB of keys to aggregate
+  float _gb;
+
+  @Param({"CHRONICLE","MAPDB","OFFHEAP"})
+  AggregationMapType _backend;
+
+  @Param({"UNIFORM"}) // ZIPFIAN, HOTSPOT
+  KeyDistribution _distribution;
+
+  int[] _randomCollisionKeys;
+  String[] _stringCollisionKeys;
+  byte[][] _byteArrayCollisionKeys;
+  RecordCodec _codec;
+  Record[] _recordCollisionKeys;
+  int _recordGroups;
+  long[] _values; // value of row i, as long as the longest workload
+
+  int numEntries(int bytesPerEntry){
+    return (int)(GB_TO_BYTES*_gb)/bytesPerEntry;
+  }
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    int numInts = numEntries(4);
+    _randomCollisionKeys = random.generateIndexes(numInts, Math.max(1, numInts/COLLISION_FACTOR), _distribution);
+    // same keys as StringKeys._collisionKeys and ByteArrayKeys._collisionKeys of BenchmarkSetBackends
+    _stringCollisionKeys = random.generateStrings(numEntries(20), 1, 20);
+    _byteArrayCollisionKeys = random.generateByteArrays(numEntries(10/2), 10);
+
+    // two columns of equal cardinality, about COLLISION_FACTOR rows per group
+    int numRecords = numEntries(RECORD_BYTES);
+    int cardinality = (int) Math.ceil(Math.sqrt(Math.max(1, numRecords/COLLISION_FACTOR)));
+    _codec = new RecordCodec(RECORD_COLUMNS);
+    _recordCollisionKeys = new Record[numRecords];
+    for(int i=0;i<numRecords;++i)
+      _recordCollisionKeys[i] = random.generateRecord(RECORD_COLUMNS, new int[]{cardinality});
+    _recordGroups = cardinality*cardinality;
+
+    _values = new long[numInts];
+    for(int i=0;i<numInts;++i)
+      _values[i] = random.getRandomInt(-1000000, 1000000);
+  }
+
+  @State(Scope.Thread)
+  public static class IntSortedCollisionMap extends BenchmarkSetBackends.FreshSet<AggregationMap<Integer>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkAggregation bench, NativeLeakTracker tracker){
+      open(tracker, bench._backend.create(Integer.class, bench.numEntries(4)/COLLISION_FACTOR + 1, null));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class IntRandomCollisionMap extends BenchmarkSetBackends.FreshSet<AggregationMap<Integer>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkAggregation bench, NativeLeakTracker tracker){
+      open(tracker, bench._backend.create(Integer.class, Math.max(1, bench._randomCollisionKeys.length/COLLISION_FACTOR), null));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class StringCollisionMap extends BenchmarkSetBackends.FreshSet<AggregationMap<String>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkAggregation bench, NativeLeakTracker tracker){
+      open(tracker, bench._backend.create(String.class, bench._stringCollisionKeys.length, StringUtils.repeat("a", 10)));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ByteArrayCollisionMap extends BenchmarkSetBackends.FreshSet<AggregationMap<byte[]>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkAggregation bench, NativeLeakTracker tracker){
+      open(tracker, bench._backend.create(byte[].class, bench._byteArrayCollisionKeys.length, new byte[5]));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class RecordCollisionMap extends BenchmarkSetBackends.FreshSet<AggregationMap<Record>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkAggregation bench, NativeLeakTracker tracker){
+      open(tracker, bench._backend.createRecordMap(bench._codec, bench._recordGroups, bench._recordCollisionKeys[0]));
+    }
+  }
+
+/*
+    Workload: Int Sorted with collision
+    Number of rows : based on _gb of storage
+    Collision: COLLISION_FACTOR many rows per group, one group after the other
+   */
+
+  @Benchmark
+  public long aggregateIntSortedCollision(IntSortedCollisionMap fresh){
+    int numEntries = numEntries(4);
+    int maxValue = numEntries/COLLISION_FACTOR;
+    AggregationMap<Integer> map = fresh._set;
+    int value,count=0;
+
+    for(value=0;value<=maxValue;++value) {
+      while(count<(value*COLLISION_FACTOR) && count<numEntries) {
+        map.aggregate(value, _values[count]);
+        ++count;
+      }
+    }
+    return map.size();
+  }
+
+/*
+    Workload: Int Random with collision
+    Number of rows : based on _gb of storage
+    Collision: COLLISION_FACTOR many rows per group, groups in random order
+   */
+
+  @Benchmark
+  public long aggregateIntRandomCollision(IntRandomCollisionMap fresh){
+    AggregationMap<Integer> map = fresh._set;
+    int[] keys = _randomCollisionKeys;
+    for(int i=0;i<keys.length;++i)
+      map.aggregate(keys[i], _values[i]);
+    return map.size();
+  }
+
+/*
+   Workload: Random String with collision
+   Number of rows : based on _gb of storage
+   Collision: maxLength set to 20, short keys repeat
+  */
+
+  @Benchmark
+  public long aggregateStringRandomCollision(StringCollisionMap fresh){
+    AggregationMap<String> map = fresh._set;
+    String[] keys = _stringCollisionKeys;
+    for(int i=0;i<keys.length;++i)
+      map.aggregate(keys[i], _values[i]);
+    return map.size();
+  }
+
+/*
+  Workload: Random Byte Array with collision
+  Number of rows : based on _gb of storage
+  Collision: maxLength set to 10, short keys repeat
+  */
+
+  @Benchmark
+  public long aggregateByteArrayRandomCollision(ByteArrayCollisionMap fresh){
+    AggregationMap<byte[]> map = fresh._set;
+    byte[][] keys = _byteArrayCollisionKeys;
+    for(int i=0;i<keys.length;++i)
+      map.aggregate(keys[i], _values[i]);
+    return map.size();
+  }
+
+/*
+  Workload: Record (INT, STRING) with collision
+  Number of rows : based on _gb of storage
+  Collision: about COLLISION_FACTOR many rows per group
+  */
+
+  @Benchmark
+  public long aggregateRecordCollision(RecordCollisionMap fresh){
+    AggregationMap<Record> map = fresh._set;
+    Record[] keys = _recordCollisionKeys;
+    for(int i=0;i<keys.length;++i)
+      map.aggregate(keys[i], _values[i]);
+    return map.size();
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkAggregation.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
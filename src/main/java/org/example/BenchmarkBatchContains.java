@@ -0,0 +1,129 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  IN filter over a block of _blockSize probes, _hitRatio of them present, through
+  containsBlock (match bitmap or match list) against one contains() per key, the
+  access pattern of containsIntWithinRange/containsStringWithinRange in BenchmarkSetBackends
+  Sets hold the same NUM_KEYS_PRELOAD keys as there. Each invocation filters the next
+  of NUM_BLOCKS pre-generated blocks; scores are per block.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkBatchContains {
+  private static final int NUM_KEYS_PRELOAD = 1000000;
+  private static final int NUM_BLOCKS = 64;
+
+  @Param({"CHRONICLE","MAPDB","HASHSET","OFFHEAP"})
+  SetBackendType _backend;
+
+  @Param({"1000","10000"})
+  int _blockSize;
+
+  @Param({"0.5"})
+  double _hitRatio;
+
+  private IntSetBackend _intSet;
+  private SetBackend<String> _stringSet;
+  private int[][] _intBlocks;
+  private String[][] _stringBlocks;
+  private long[] _bitmap;
+  private int[] _matches;
+  private int _block;
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    _intSet = _backend.createIntSet(NUM_KEYS_PRELOAD);
+    for(int value=0;value<NUM_KEYS_PRELOAD;++value)
+      _intSet.add(value);
+    _stringSet = _backend.create(String.class, NUM_KEYS_PRELOAD, StringUtils.repeat("a", 50));
+    String[] present = random.generateStrings(NUM_KEYS_PRELOAD, 1, 100);
+    for(String key : present)
+      _stringSet.add(key);
+    String[] absent = random.generateStrings(_blockSize, 101, 150);
+
+    _intBlocks = new int[NUM_BLOCKS][];
+    _stringBlocks = new String[NUM_BLOCKS][];
+    for(int b=0;b<NUM_BLOCKS;++b){
+      _intBlocks[b] = random.generateIntProbes(_blockSize, NUM_KEYS_PRELOAD, 2*NUM_KEYS_PRELOAD, _hitRatio, KeyDistribution.UNIFORM);
+      _stringBlocks[b] = random.generateProbes(present, absent, new String[_blockSize], _hitRatio, KeyDistribution.UNIFORM);
+    }
+    _bitmap = new long[Bitmaps.words(_blockSize)];
+    _matches = new int[_blockSize];
+  }
+
+  @TearDown
+  public void tearDown(){
+    _intSet.close();
+    _stringSet.close();
+  }
+
+  private int nextBlock(){
+    return _block++ & (NUM_BLOCKS - 1);
+  }
+
+  @Benchmark
+  public int containsIntBlockBitmap(){
+    int[] keys = _intBlocks[nextBlock()];
+    return _intSet.containsBlock(keys, keys.length, _bitmap);
+  }
+
+  @Benchmark
+  public int containsIntBlockMatches(){
+    int[] keys = _intBlocks[nextBlock()];
+    return _intSet.containsBlock(keys, keys.length, _matches);
+  }
+
+  @Benchmark
+  public int containsIntSingle(){
+    int matches = 0;
+    for(int key : _intBlocks[nextBlock()])
+      if(_intSet.contains(key))
+        matches++;
+    return matches;
+  }
+
+  @Benchmark
+  public int containsStringBlockBitmap(){
+    String[] keys = _stringBlocks[nextBlock()];
+    return _stringSet.containsBlock(keys, keys.length, _bitmap);
+  }
+
+  @Benchmark
+  public int containsStringSingle(){
+    int matches = 0;
+    for(String key : _stringBlocks[nextBlock()])
+      if(_stringSet.contains(key))
+        matches++;
+    return matches;
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkBatchContains.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
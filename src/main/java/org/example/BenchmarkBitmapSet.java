@@ -0,0 +1,130 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  DISTINCT over int keys drawn from [0, DOMAIN) at _density, from a sparse random
+  sample up to every value of the domain (dictionary ids of a fully used dictionary)
+  insert adds the keys in random order to a fresh, empty set per invocation (see
+  BenchmarkSetBackends.FreshSet), so only addAll and, for BITMAP,
+  OffHeapBitmapSet.runOptimize() are scored, and reports the memoryUsed() of the
+  set as memoryBytes. contains probes
+  NUM_PROBES random values of the domain, iterate visits every key of a preloaded set
+  through forEach, in ascending order for BITMAP only.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkBitmapSet {
+  private static final int DOMAIN = 1 << 22;
+  private static final int NUM_PROBES = 100000;
+
+  @Param({"BITMAP","OFFHEAP","CHRONICLE","HASHSET"})
+  SetBackendType _backend;
+
+  @Param({"0.001","0.01","0.1","0.5","1.0"})
+  double _density;
+
+  private int[] _keys;
+  private int[] _probes;
+  private IntSetBackend _set;
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Footprint {
+    public long memoryBytes;
+  }
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    int[] sample = random.generateIndexes(DOMAIN, Integer.MAX_VALUE, KeyDistribution.UNIFORM);
+    int count = 0;
+    int[] keys = new int[DOMAIN];
+    for(int value=0;value<DOMAIN;++value)
+      if(sample[value] < _density*Integer.MAX_VALUE)
+        keys[count++] = value;
+    // random insertion order
+    int[] order = random.generateIndexes(count, Integer.MAX_VALUE, KeyDistribution.UNIFORM);
+    for(int i=count-1;i>0;--i){
+      int j = order[i] % (i + 1);
+      int key = keys[i];
+      keys[i] = keys[j];
+      keys[j] = key;
+    }
+    _keys = Arrays.copyOf(keys, count);
+    _probes = random.generateIndexes(NUM_PROBES, DOMAIN, KeyDistribution.UNIFORM);
+    _set = fill(_backend.createIntSet(_keys.length));
+  }
+
+  @TearDown
+  public void tearDown(){
+    _set.close();
+  }
+
+  @State(Scope.Thread)
+  public static class FreshIntSet extends BenchmarkSetBackends.FreshSet<IntSetBackend> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkBitmapSet bench, NativeLeakTracker tracker){
+      open(tracker, bench._backend.createIntSet(bench._keys.length));
+    }
+  }
+
+  private IntSetBackend fill(IntSetBackend set){
+    set.addAll(_keys, _keys.length);
+    if(set instanceof OffHeapBitmapSet)
+      ((OffHeapBitmapSet) set).runOptimize();
+    return set;
+  }
+
+  @Benchmark
+  public long insert(FreshIntSet fresh, Footprint footprint){
+    IntSetBackend set = fill(fresh._set);
+    footprint.memoryBytes = set.memoryUsed();
+    return set.size();
+  }
+
+  @Benchmark
+  public int contains(){
+    int matches = 0;
+    for(int probe : _probes)
+      if(_set.contains(probe))
+        matches++;
+    return matches;
+  }
+
+  @Benchmark
+  public long iterate(){
+    long[] sum = new long[1];
+    _set.forEach(key -> sum[0] += key);
+    return sum[0];
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkBitmapSet.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
@@ -0,0 +1,144 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  DISTINCT of _numKeys keys handed over in blocks of _blockSize, as our query engine
+  does, through the block API (addAll) against one add() per key
+  Int keys are dict ids with about 4 repeats each. Byte keys sit in one direct
+  buffer with an offsets buffer per block; the per key workloads add the same keys
+  from byte[]s materialised in setup, which is what callers do today.
+  OFFHEAP hashes each batch of a block before probing it, which pays off once the
+  table outgrows the CPU caches, hence the larger _numKeys.
+  Every workload adds to a fresh, empty set per invocation (see
+  BenchmarkSetBackends.FreshSet), so set creation and close are not scored.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkBlockInsert {
+  private static final int MAX_KEY_LENGTH = 40;
+
+  @Param({"CHRONICLE","MAPDB","HASHSET","OFFHEAP"})
+  SetBackendType _backend;
+
+  @Param({"10000"})
+  int _blockSize;
+
+  @Param({"1048576","8388608"})
+  int _numKeys;
+
+  private int[][] _intBlocks;
+  private byte[][] _byteKeys;
+  private ByteBuffer _data;
+  private ByteBuffer[] _offsetBlocks;
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    int[] ids = random.generateIndexes(_numKeys, _numKeys/4, KeyDistribution.UNIFORM);
+    int numBlocks = (_numKeys + _blockSize - 1)/_blockSize;
+    _intBlocks = new int[numBlocks][];
+    for(int b=0;b<numBlocks;++b){
+      int from = b*_blockSize;
+      _intBlocks[b] = new int[Math.min(_blockSize, _numKeys - from)];
+      System.arraycopy(ids, from, _intBlocks[b], 0, _intBlocks[b].length);
+    }
+
+    _byteKeys = random.generateByteArrays(_numKeys, MAX_KEY_LENGTH);
+    int dataBytes = 0;
+    for(byte[] key : _byteKeys)
+      dataBytes += key.length;
+    _data = ByteBuffer.allocateDirect(dataBytes);
+    _offsetBlocks = new ByteBuffer[numBlocks];
+    for(int b=0;b<numBlocks;++b){
+      int from = b*_blockSize;
+      int to = Math.min(from + _blockSize, _numKeys);
+      // offsets are absolute into _data, which every block shares
+      ByteBuffer offsets = ByteBuffer.allocate((to - from + 1)*Integer.BYTES);
+      offsets.putInt(_data.position());
+      for(int i=from;i<to;++i){
+        _data.put(_byteKeys[i]);
+        offsets.putInt(_data.position());
+      }
+      offsets.flip();
+      _offsetBlocks[b] = offsets;
+    }
+    _data.clear();
+  }
+
+  @State(Scope.Thread)
+  public static class FreshIntSet extends BenchmarkSetBackends.FreshSet<IntSetBackend> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkBlockInsert bench, NativeLeakTracker tracker){
+      open(tracker, bench._backend.createIntSet(bench._numKeys));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class FreshByteArraySet extends BenchmarkSetBackends.FreshSet<ByteArraySetBackend> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkBlockInsert bench, NativeLeakTracker tracker){
+      open(tracker, bench._backend.createByteArraySet(bench._numKeys, new byte[MAX_KEY_LENGTH/2]));
+    }
+  }
+
+  @Benchmark
+  public long insertIntBlock(FreshIntSet fresh){
+    IntSetBackend set = fresh._set;
+    for(int[] block : _intBlocks)
+      set.addAll(block, block.length);
+    return set.size();
+  }
+
+  @Benchmark
+  public long insertIntPerKey(FreshIntSet fresh){
+    IntSetBackend set = fresh._set;
+    for(int[] block : _intBlocks)
+      for(int value : block)
+        set.add(value);
+    return set.size();
+  }
+
+  @Benchmark
+  public long insertByteArrayBlock(FreshByteArraySet fresh){
+    ByteArraySetBackend set = fresh._set;
+    for(ByteBuffer offsets : _offsetBlocks)
+      set.addAll(offsets, _data);
+    return set.size();
+  }
+
+  @Benchmark
+  public long insertByteArrayPerKey(FreshByteArraySet fresh){
+    ByteArraySetBackend set = fresh._set;
+    for(byte[] key : _byteKeys)
+      set.add(key);
+    return set.size();
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkBlockInsert.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
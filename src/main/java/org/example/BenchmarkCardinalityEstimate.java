@@ -0,0 +1,114 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  DISTINCT of NUM_KEYS input keys with _distinctRatio * NUM_KEYS distinct values,
+  sizing the set from a CardinalityEstimate of the first _sampleSize keys (*Estimated)
+  or for the worst case of every input key being distinct (*OverProvisioned).
+  Estimated time includes the sampling pass. offHeapBytes reports memoryUsed() of the
+  last set built in the iteration.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkCardinalityEstimate {
+  private static final int NUM_KEYS = 1 << 20;
+
+  @Param({"CHRONICLE","MAPDB"})
+  SetBackendType _backend;
+
+  @Param({"0.01","0.1","1.0"})
+  double _distinctRatio;
+
+  @Param({"65536"})
+  int _sampleSize;
+
+  private int[] _intKeys;
+  private String[] _stringKeys;
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Footprint {
+    public long offHeapBytes;
+  }
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    int distinct = Math.max(1, (int)(NUM_KEYS*_distinctRatio));
+    _intKeys = random.generateIndexes(NUM_KEYS, distinct, KeyDistribution.UNIFORM);
+    String[] values = random.generateStrings(distinct, 10, 30);
+    _stringKeys = new String[NUM_KEYS];
+    for(int i=0;i<NUM_KEYS;++i)
+      _stringKeys[i] = values[_intKeys[i]];
+    System.out.println("ints " + CardinalityEstimate.ofInts(_intKeys, NUM_KEYS, _sampleSize)
+        + ", strings " + CardinalityEstimate.ofStrings(_stringKeys, NUM_KEYS, _sampleSize));
+  }
+
+  private static <K> long insert(SetBackend<K> set, K[] keys, Footprint footprint){
+    try (SetBackend<K> s = set) {
+      for(K key : keys)
+        s.add(key);
+      footprint.offHeapBytes = s.memoryUsed();
+      return s.size();
+    }
+  }
+
+  private long insert(SetBackend<Integer> set, Footprint footprint){
+    try (SetBackend<Integer> s = set) {
+      for(int key : _intKeys)
+        s.add(key);
+      footprint.offHeapBytes = s.memoryUsed();
+      return s.size();
+    }
+  }
+
+  @Benchmark
+  public long insertIntEstimated(Footprint footprint){
+    CardinalityEstimate estimate = CardinalityEstimate.ofInts(_intKeys, NUM_KEYS, _sampleSize);
+    return insert(_backend.create(Integer.class, estimate), footprint);
+  }
+
+  @Benchmark
+  public long insertIntOverProvisioned(Footprint footprint){
+    return insert(_backend.create(Integer.class, new CardinalityEstimate(NUM_KEYS, 4)), footprint);
+  }
+
+  @Benchmark
+  public long insertStringEstimated(Footprint footprint){
+    CardinalityEstimate estimate = CardinalityEstimate.ofStrings(_stringKeys, NUM_KEYS, _sampleSize);
+    return insert(_backend.create(String.class, estimate), _stringKeys, footprint);
+  }
+
+  @Benchmark
+  public long insertStringOverProvisioned(Footprint footprint){
+    // worst case sizing: every key distinct and as long as the longest
+    return insert(_backend.create(String.class, new CardinalityEstimate(NUM_KEYS, 30)), _stringKeys, footprint);
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkCardinalityEstimate.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
@@ -0,0 +1,133 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  Concurrent add and contains on one shared set
+  _concurrency is the Chronicle actualSegments and the MapDB segment/lock count.
+  CONCURRENT_HASHSET is ConcurrentHashMap.newKeySet(), HASHSET and OFFHEAP run
+  behind a single lock (SynchronizedSetBackend) and ignore _concurrency, so main()
+  sweeps SEGMENTED_BACKENDS over SEGMENT_SWEEP and runs the others once. From the
+  command line pass e.g. -p _backend=CHRONICLE,MAPDB -p _concurrency=16,64,256.
+  The set is recreated every iteration and keys are drawn from KEY_SPACE, so it
+  never holds more than KEY_SPACE entries. Use -t or -tg to sweep thread counts.
+  Keys are pre-generated with _distribution; each thread walks the shared key array
+  from its own offset so threads do not hit the same keys in lock step.
+ */
+
+@BenchmarkMode({Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkConcurrentSet {
+  private static final int KEY_SPACE = 1 << 22;
+  private static final int NUM_KEYS_PRELOAD = KEY_SPACE/2;
+  private static final int NUM_KEYS = 1 << 20;
+  private static final int KEY_MASK = NUM_KEYS - 1;
+
+  private static final String[] SEGMENTED_BACKENDS = {"CHRONICLE", "MAPDB"};
+  private static final String[] SEGMENT_SWEEP = {"16", "64", "256"};
+
+  @Param({"CHRONICLE","MAPDB","CONCURRENT_HASHSET","HASHSET","OFFHEAP"})
+  SetBackendType _backend;
+
+  @Param({"16"}) // only CHRONICLE and MAPDB use it, see main()
+  int _concurrency;
+
+  @Param({"UNIFORM"}) // ZIPFIAN, HOTSPOT
+  KeyDistribution _distribution;
+
+  private SetBackend<Integer> _set;
+  private int[] _keys;
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    private static final AtomicInteger NEXT_OFFSET = new AtomicInteger();
+    int _next = NEXT_OFFSET.getAndAdd(NUM_KEYS/64);
+  }
+
+  @Setup
+  public void setUpKeys(){
+    _keys = new RandomUtils().generateIndexes(NUM_KEYS, KEY_SPACE, _distribution);
+  }
+
+  @Setup(Level.Iteration)
+  public void setUp(){
+    _set = _backend.createConcurrent(Integer.class, KEY_SPACE, null, _concurrency);
+
+    // half the key space is present so contains sees about 50% hits
+    for(int value=0;value<NUM_KEYS_PRELOAD;++value)
+      _set.add(value*2);
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown(){
+    _set.close();
+  }
+
+  private int nextKey(Cursor cursor){
+    return _keys[cursor._next++ & KEY_MASK];
+  }
+
+  // ALL THREADS WRITING //
+  @Benchmark
+  @Threads(Threads.MAX)
+  public boolean add(Cursor cursor){
+    return _set.add(nextKey(cursor));
+  }
+
+  // ALL THREADS READING //
+  @Benchmark
+  @Threads(Threads.MAX)
+  public boolean contains(Cursor cursor){
+    return _set.contains(nextKey(cursor));
+  }
+
+  // MIXED: 1 writer for every 3 readers, as segment workers feeding a combine phase //
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public boolean mixedAdd(Cursor cursor){
+    return _set.add(nextKey(cursor));
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  public boolean mixedContains(Cursor cursor){
+    return _set.contains(nextKey(cursor));
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder segmented = new OptionsBuilder().include(BenchmarkConcurrentSet.class.getSimpleName())
+        .param("_backend", SEGMENTED_BACKENDS)
+        .param("_concurrency", SEGMENT_SWEEP);
+    new Runner(segmented.build()).run();
+    ChainedOptionsBuilder others = new OptionsBuilder().include(BenchmarkConcurrentSet.class.getSimpleName())
+        .param("_backend", "CONCURRENT_HASHSET", "HASHSET", "OFFHEAP");
+    new Runner(others.build()).run();
+  }
+}
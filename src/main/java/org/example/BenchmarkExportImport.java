@@ -0,0 +1,177 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  Shipping a DISTINCT result of NUM_KEYS_PRELOAD keys between nodes
+  export* write the set into one buffer, as a KeyBlock (exportKeys) or by iterating
+  and serializing every key (*Iterate: the int, or a length prefixed UTF-8 String)
+  into a buffer allocated in setup. import* rebuild a set from those buffers, through
+  importSet or by deserializing and adding every key (*Deserialize).
+  transferBytes reports the size of the buffer written by the last export.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkExportImport {
+  private static final int NUM_KEYS_PRELOAD = 1000000;
+  private static final String AVERAGE_STRING = StringUtils.repeat("a", 50);
+
+  @Param({"CHRONICLE","MAPDB","HASHSET","OFFHEAP"})
+  SetBackendType _backend;
+
+  private SetBackend<Integer> _intSet;
+  private SetBackend<String> _stringSet;
+  private ByteBuffer _intBlock;
+  private ByteBuffer _stringBlock;
+  private ByteBuffer _intSerialized;
+  private ByteBuffer _stringSerialized;
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Transfer {
+    public long transferBytes;
+  }
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    _intSet = _backend.create(Integer.class, NUM_KEYS_PRELOAD, null);
+    for(int key : random.generateIndexes(NUM_KEYS_PRELOAD, Integer.MAX_VALUE, KeyDistribution.UNIFORM))
+      _intSet.add(key);
+    _stringSet = _backend.create(String.class, NUM_KEYS_PRELOAD, AVERAGE_STRING);
+    long stringBytes = 0;
+    for(String key : random.generateStrings(NUM_KEYS_PRELOAD, 1, 100)){
+      _stringSet.add(key);
+      stringBytes += Integer.BYTES + Utf8.encodedLength(key);
+    }
+    _intBlock = _intSet.exportKeys();
+    _stringBlock = _stringSet.exportKeys();
+    _intSerialized = ByteBuffer.allocateDirect(NUM_KEYS_PRELOAD*Integer.BYTES);
+    _stringSerialized = ByteBuffer.allocateDirect((int)stringBytes);
+    serializeInts();
+    serializeStrings();
+  }
+
+  @TearDown
+  public void tearDown(){
+    _intSet.close();
+    _stringSet.close();
+  }
+
+  private ByteBuffer serializeInts(){
+    _intSerialized.clear();
+    Iterator<Integer> it = _intSet.iterator();
+    while(it.hasNext())
+      _intSerialized.putInt(it.next());
+    _intSerialized.flip();
+    return _intSerialized;
+  }
+
+  private ByteBuffer serializeStrings(){
+    _stringSerialized.clear();
+    Iterator<String> it = _stringSet.iterator();
+    while(it.hasNext()){
+      byte[] bytes = it.next().getBytes(StandardCharsets.UTF_8);
+      _stringSerialized.putInt(bytes.length);
+      _stringSerialized.put(bytes);
+    }
+    _stringSerialized.flip();
+    return _stringSerialized;
+  }
+
+  @Benchmark
+  public ByteBuffer exportInt(Transfer transfer){
+    ByteBuffer block = _intSet.exportKeys();
+    transfer.transferBytes = block.capacity();
+    return block;
+  }
+
+  @Benchmark
+  public ByteBuffer exportIntIterate(Transfer transfer){
+    ByteBuffer serialized = serializeInts();
+    transfer.transferBytes = serialized.limit();
+    return serialized;
+  }
+
+  @Benchmark
+  public ByteBuffer exportString(Transfer transfer){
+    ByteBuffer block = _stringSet.exportKeys();
+    transfer.transferBytes = block.capacity();
+    return block;
+  }
+
+  @Benchmark
+  public ByteBuffer exportStringIterate(Transfer transfer){
+    ByteBuffer serialized = serializeStrings();
+    transfer.transferBytes = serialized.limit();
+    return serialized;
+  }
+
+  @Benchmark
+  public long importInt(){
+    try (SetBackend<Integer> set = _backend.importSet(Integer.class, _intBlock)) {
+      return set.size();
+    }
+  }
+
+  @Benchmark
+  public long importIntDeserialize(){
+    ByteBuffer serialized = _intSerialized.duplicate();
+    try (SetBackend<Integer> set = _backend.create(Integer.class, serialized.remaining()/Integer.BYTES, null)) {
+      while(serialized.hasRemaining())
+        set.add(serialized.getInt());
+      return set.size();
+    }
+  }
+
+  @Benchmark
+  public long importString(){
+    try (SetBackend<String> set = _backend.importSet(String.class, _stringBlock)) {
+      return set.size();
+    }
+  }
+
+  @Benchmark
+  public long importStringDeserialize(){
+    ByteBuffer serialized = _stringSerialized.duplicate();
+    try (SetBackend<String> set = _backend.create(String.class, NUM_KEYS_PRELOAD, AVERAGE_STRING)) {
+      while(serialized.hasRemaining()){
+        byte[] bytes = new byte[serialized.getInt()];
+        serialized.get(bytes);
+        set.add(new String(bytes, StandardCharsets.UTF_8));
+      }
+      return set.size();
+    }
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkExportImport.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
@@ -0,0 +1,188 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  DISTINCT of _numEntries keys when the entries hint is _underestimate times too small
+  insertGrowable* run a GrowableChronicleSet sized numEntries/_underestimate, insertChronicleExact
+  is a plain ChronicleSet told the exact count, the best case a growable set can approach.
+  contains* probe a set loaded with the same under-estimate, before and after compact().
+  insert* add to a fresh, empty set per invocation (see BenchmarkSetBackends.FreshSet),
+  so creating and closing it are not scored; the generations added while growing and
+  compact() are. insertInt* report the generations and memoryUsed() of their set as
+  counters, after compact() for insertIntGrowableCompact.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkGrowableSet {
+  private static final int NUM_PROBES = 1 << 16;
+  private static final int PROBE_MASK = NUM_PROBES - 1;
+  private static final String AVERAGE_STRING = "aaaaaaaaaaaaaaaaaaaa"; // keys are 1-40 chars
+
+  @Param({"1000000"})
+  int _numEntries;
+
+  @Param({"1","10","100"})
+  int _underestimate;
+
+  private int[] _intKeys;
+  private String[] _stringKeys;
+  private int[] _probes;
+
+  private GrowableChronicleSet<Integer> _chained;
+  private GrowableChronicleSet<Integer> _compacted;
+  private int _probe;
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    _intKeys = random.generateIndexes(_numEntries, Integer.MAX_VALUE, KeyDistribution.UNIFORM);
+    _stringKeys = random.generateStrings(_numEntries, 1, 40);
+    _probes = new int[NUM_PROBES];
+    int[] hits = random.generateIndexes(NUM_PROBES, _numEntries, KeyDistribution.UNIFORM);
+    for(int i=0;i<NUM_PROBES;++i)
+      _probes[i] = _intKeys[hits[i]];
+
+    _chained = new GrowableChronicleSet<>(Integer.class, initialEntries(), null, StorageType.MEMORY);
+    _compacted = new GrowableChronicleSet<>(Integer.class, initialEntries(), null, StorageType.MEMORY);
+    for(int key : _intKeys){
+      _chained.add(key);
+      _compacted.add(key);
+    }
+    _compacted.compact();
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Footprint {
+    public long generations;
+    public long offHeapBytes;
+  }
+
+  @TearDown
+  public void tearDown(){
+    _chained.close();
+    _compacted.close();
+  }
+
+  private long initialEntries(){
+    return Math.max(1, _numEntries/_underestimate);
+  }
+
+  @State(Scope.Thread)
+  public static class FreshGrowableIntSet extends BenchmarkSetBackends.FreshSet<GrowableChronicleSet<Integer>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkGrowableSet bench, NativeLeakTracker tracker){
+      open(tracker, new GrowableChronicleSet<>(Integer.class, bench.initialEntries(), null, StorageType.MEMORY));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class FreshGrowableStringSet extends BenchmarkSetBackends.FreshSet<GrowableChronicleSet<String>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkGrowableSet bench, NativeLeakTracker tracker){
+      open(tracker, new GrowableChronicleSet<>(String.class, bench.initialEntries(), AVERAGE_STRING, StorageType.MEMORY));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ExactIntSet extends BenchmarkSetBackends.FreshSet<SetBackend<Integer>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkGrowableSet bench, NativeLeakTracker tracker){
+      open(tracker, SetBackendType.CHRONICLE.create(Integer.class, bench._numEntries, null));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ExactStringSet extends BenchmarkSetBackends.FreshSet<SetBackend<String>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkGrowableSet bench, NativeLeakTracker tracker){
+      open(tracker, SetBackendType.CHRONICLE.create(String.class, bench._numEntries, AVERAGE_STRING));
+    }
+  }
+
+  @Benchmark
+  public long insertIntGrowable(FreshGrowableIntSet fresh, Footprint footprint){
+    GrowableChronicleSet<Integer> set = fresh._set;
+    for(int key : _intKeys)
+      set.add(key);
+    footprint.generations = set.generations();
+    footprint.offHeapBytes = set.memoryUsed();
+    return set.size();
+  }
+
+  @Benchmark
+  public long insertIntGrowableCompact(FreshGrowableIntSet fresh, Footprint footprint){
+    GrowableChronicleSet<Integer> set = fresh._set;
+    for(int key : _intKeys)
+      set.add(key);
+    set.compact();
+    footprint.generations = set.generations();
+    footprint.offHeapBytes = set.memoryUsed();
+    return set.size();
+  }
+
+  @Benchmark
+  public long insertIntChronicleExact(ExactIntSet fresh){
+    SetBackend<Integer> set = fresh._set;
+    for(int key : _intKeys)
+      set.add(key);
+    return set.size();
+  }
+
+  @Benchmark
+  public long insertStringGrowable(FreshGrowableStringSet fresh){
+    GrowableChronicleSet<String> set = fresh._set;
+    for(String key : _stringKeys)
+      set.add(key);
+    return set.size();
+  }
+
+  @Benchmark
+  public long insertStringChronicleExact(ExactStringSet fresh){
+    SetBackend<String> set = fresh._set;
+    for(String key : _stringKeys)
+      set.add(key);
+    return set.size();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean containsChained(){
+    return _chained.contains(_probes[_probe++ & PROBE_MASK]);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean containsCompacted(){
+    return _compacted.contains(_probes[_probe++ & PROBE_MASK]);
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkGrowableSet.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
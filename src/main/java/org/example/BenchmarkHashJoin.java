@@ -0,0 +1,154 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  Hash join build and probe on Record (INT, STRING) keys against every JoinTable
+  NUM_ROWS/_collisionFactor distinct keys, each built exactly _collisionFactor times
+  (the key multiplicity, COLLISION_FACTOR of the set workloads) in shuffled order;
+  row i has row id i. _collisionFactor=1 is a unique build side.
+  build adds all rows to a fresh, empty table (see BenchmarkSetBackends.FreshSet);
+  probe looks NUM_PROBES keys up in a table built once, exactly half of them built
+  keys and half never built ones, and streams the matches through a PROBE_BUFFER row id buffer.
+  Distinct keys and off-heap bytes per row are printed at iteration teardown. main()
+  runs with the gc profiler: the HASHMAP build allocates a key entry and a row id
+  array per key on the heap, OFFHEAP none. Run from the command line with -prof gc
+  for the same.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkHashJoin {
+  private static final int NUM_ROWS = 1 << 22;
+  private static final int NUM_PROBES = 1 << 16;
+  private static final int PROBE_BUFFER = 1024;
+  private static final ColumnType[] KEY_COLUMNS = {ColumnType.INT, ColumnType.STRING};
+
+  @Param({"HASHMAP","OFFHEAP"})
+  JoinTableType _backend;
+
+  @Param({"1","10","100","10000"}) // build rows per distinct key
+  int _collisionFactor;
+
+  private RecordCodec _codec;
+  private int _numKeys;
+  private Record[] _buildKeys; // key of row i
+  private Record[] _probeKeys;
+  private JoinTable _table;
+  private final long[] _rowIds = new long[PROBE_BUFFER];
+  private long _checksum;
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    _codec = new RecordCodec(KEY_COLUMNS);
+    _numKeys = Math.max(1, NUM_ROWS/_collisionFactor);
+    // key i is the INT and STRING value of i. Every row and probe gets its own Record, as
+    // rows decoded from a scan would, so a heap table cannot match keys by identity
+    int numRows = _numKeys*_collisionFactor;
+    int[] buildIndexes = new int[numRows];
+    for(int i=0;i<numRows;++i)
+      buildIndexes[i] = i/_collisionFactor;
+    random.shuffle(buildIndexes);
+    _buildKeys = new Record[numRows];
+    for(int i=0;i<numRows;++i)
+      _buildKeys[i] = key(buildIndexes[i]);
+    // keys [_numKeys, 2*_numKeys) are never built
+    int[] probeIndexes = new int[NUM_PROBES];
+    for(int i=0;i<NUM_PROBES;++i)
+      probeIndexes[i] = (i < NUM_PROBES/2 ? 0 : _numKeys) + random.getRandomInt(0, _numKeys);
+    random.shuffle(probeIndexes);
+    _probeKeys = new Record[NUM_PROBES];
+    for(int i=0;i<NUM_PROBES;++i)
+      _probeKeys[i] = key(probeIndexes[i]);
+
+    _table = _backend.create(_codec, _numKeys, numRows);
+    build(_table);
+  }
+
+  private static Record key(int index){
+    return new Record(new Object[]{RandomUtils.columnValue(ColumnType.INT, index), RandomUtils.columnValue(ColumnType.STRING, index)});
+  }
+
+  @TearDown(Level.Iteration)
+  public void report(){
+    System.out.println("\n" + _backend + " x" + _collisionFactor + ": " + _table.size() + " keys, " + _table.rows()
+        + " rows, off-heap bytes per row " + (double) _table.memoryUsed()/_table.rows());
+  }
+
+  @TearDown
+  public void tearDown(){
+    _table.close();
+  }
+
+  @State(Scope.Thread)
+  public static class FreshTable extends BenchmarkSetBackends.FreshSet<JoinTable> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkHashJoin bench, NativeLeakTracker tracker){
+      open(tracker, bench._backend.create(bench._codec, bench._numKeys, bench._buildKeys.length));
+    }
+  }
+
+  private long build(JoinTable table){
+    Record[] keys = _buildKeys;
+    for(int i=0;i<keys.length;++i)
+      table.add(keys[i], i);
+    return table.rows();
+  }
+
+  /*
+    Workload: build side of _numKeys*_collisionFactor rows, NUM_ROWS rounded down
+    Collision: exactly _collisionFactor rows per key, keys in random order
+   */
+  @Benchmark
+  public long build(FreshTable fresh){
+    return build(fresh._set);
+  }
+
+  /*
+    Workload: NUM_PROBES probes, half of them hit exactly _collisionFactor rows
+   */
+  @Benchmark
+  public long probe(){
+    JoinTable table = _table;
+    long matches = 0;
+    for(Record key : _probeKeys)
+      matches += table.probe(key, _rowIds, this::consume);
+    return matches + _checksum;
+  }
+
+  private void consume(long[] rowIds, int count){
+    long sum = _checksum;
+    for(int i=0;i<count;++i)
+      sum += rowIds[i];
+    _checksum = sum;
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkHashJoin.class.getSimpleName())
+        .addProfiler(GCProfiler.class);
+    new Runner(opt.build()).run();
+  }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  Full scan of a set of NUM_KEYS_PRELOAD keys, as when DISTINCT results are serialized
+  to the broker, through iterator() (*Iterator) against the flyweight callbacks
+  (forEach for ints, forEachBytes for Strings) that read keys where they are stored.
+  main() runs with the gc profiler: compare gc.alloc.rate.norm, bytes allocated per
+  scan, next to the time. Run from the command line with -prof gc for the same.
+  Both String workloads hand every key to the Blackhole whole: iterateStringIterator
+  as a String, iterateStringForEachBytes as its bytes copied into one reused buffer,
+  as a serializer writing the key out would.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkIteration {
+  private static final int NUM_KEYS_PRELOAD = 1000000;
+
+  @Param({"CHRONICLE","MAPDB","HASHSET","OFFHEAP"})
+  SetBackendType _backend;
+
+  private IntSetBackend _intSet;
+  private SetBackend<String> _stringSet;
+  private byte[] _keyBuffer = new byte[256];
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    _intSet = _backend.createIntSet(NUM_KEYS_PRELOAD);
+    for(int value=0;value<NUM_KEYS_PRELOAD;++value)
+      _intSet.add(value);
+    _stringSet = _backend.create(String.class, NUM_KEYS_PRELOAD, StringUtils.repeat("a", 50));
+    for(String key : random.generateStrings(NUM_KEYS_PRELOAD, 1, 100))
+      _stringSet.add(key);
+  }
+
+  @TearDown
+  public void tearDown(){
+    _intSet.close();
+    _stringSet.close();
+  }
+
+  @Benchmark
+  public void iterateIntIterator(Blackhole bh){
+    Iterator<Integer> it = _intSet.iterator();
+    while(it.hasNext())
+      bh.consume(it.next().intValue());
+  }
+
+  @Benchmark
+  public void iterateIntForEach(Blackhole bh){
+    _intSet.forEach(bh::consume);
+  }
+
+  @Benchmark
+  public void iterateStringIterator(Blackhole bh){
+    Iterator<String> it = _stringSet.iterator();
+    while(it.hasNext())
+      bh.consume(it.next());
+  }
+
+  @Benchmark
+  public void iterateStringForEachBytes(Blackhole bh){
+    _stringSet.forEachBytes((base, offset, length) -> bh.consume(copyKey(base, offset, length)));
+  }
+
+  // copies every byte of the key into _keyBuffer, as a serializer writing it out would
+  private byte[] copyKey(Object base, long offset, int length){
+    if(_keyBuffer.length < length)
+      _keyBuffer = new byte[length];
+    if(base == null)
+      OffHeapVarKeySet.MEMORY.copyMemory(offset, _keyBuffer, OffHeapVarKeySet.BYTE_ARRAY_BASE, length);
+    else
+      OffHeapVarKeySet.MEMORY.copyMemory(base, offset, _keyBuffer, OffHeapVarKeySet.BYTE_ARRAY_BASE, length);
+    return _keyBuffer;
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkIteration.class.getSimpleName())
+        .addProfiler(GCProfiler.class);
+    new Runner(opt.build()).run();
+  }
+}
@@ -0,0 +1,155 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  Latency distribution of single contains and add calls, the hot paths of
+  BenchmarkSetBackends, in Mode.SampleTime: JMH times sampled invocations one by one
+  and reports p0.50 to p0.9999 and the max next to the mean, so Chronicle segment
+  locking or MapDB store growth show up in the tail instead of vanishing in an average.
+  contains probes sets of NUM_KEYS_PRELOAD keys with _hitRatio hits. insert adds the
+  next of INSERTS_PER_SET distinct keys to a set which starts empty and small, so
+  growing backends resize while sampled, and is replaced once it holds them all (see
+  LatencyInserts, whose check is part of every measured add, as in LatencyProfile).
+  CHRONICLE cannot grow and is sized for all of them, GROWABLE_CHRONICLE grows.
+  Samples include the cost of reading the timer (about 20ns); LatencyProfile records
+  every operation instead and adds a fixed rate load mode.
+ */
+
+@BenchmarkMode({Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkLatency {
+  private static final int NUM_KEYS_PRELOAD = 1000000;
+  private static final int INSERTS_PER_SET = 1 << 20;
+  private static final int NUM_PROBES = 1 << 18;
+  private static final int PROBE_MASK = NUM_PROBES - 1;
+  private static final int MAX_INT_PROBE = 2*NUM_KEYS_PRELOAD;
+  private static final String AVERAGE_STRING = StringUtils.repeat("a", 50);
+
+  @Param({"CHRONICLE","GROWABLE_CHRONICLE","MAPDB","HASHSET","OFFHEAP"})
+  SetBackendType _backend;
+
+  @Param({"0.5"})
+  double _hitRatio;
+
+  private IntSetBackend _intSet;
+  private SetBackend<String> _stringSet;
+  private int[] _intProbes;
+  private String[] _stringProbes;
+  private int[] _intInserts;
+  private String[] _stringInserts;
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    _intSet = _backend.createIntSet(NUM_KEYS_PRELOAD);
+    for(int value=0;value<NUM_KEYS_PRELOAD;++value)
+      _intSet.add(value);
+    _stringSet = _backend.create(String.class, NUM_KEYS_PRELOAD, AVERAGE_STRING);
+    String[] present = random.generateStrings(NUM_KEYS_PRELOAD, 1, 100);
+    for(String key : present)
+      _stringSet.add(key);
+    _intProbes = random.generateIntProbes(NUM_PROBES, NUM_KEYS_PRELOAD, MAX_INT_PROBE, _hitRatio, KeyDistribution.UNIFORM);
+    _stringProbes = random.generateProbes(present, random.generateStrings(NUM_PROBES, 101, 150), new String[NUM_PROBES],
+        _hitRatio, KeyDistribution.UNIFORM);
+
+    // distinct keys, so every insert adds
+    _intInserts = new int[INSERTS_PER_SET];
+    for(int i=0;i<INSERTS_PER_SET;++i)
+      _intInserts[i] = OffHeapIntSet.hash(i);
+    _stringInserts = new String[INSERTS_PER_SET];
+    for(int i=0;i<INSERTS_PER_SET;++i)
+      _stringInserts[i] = Integer.toHexString(_intInserts[i]) + random.generateRandomString(1, 40);
+  }
+
+  @TearDown
+  public void tearDown(){
+    _intSet.close();
+    _stringSet.close();
+  }
+
+  @State(Scope.Thread)
+  public static class Probes {
+    int _next;
+  }
+
+  // sets being filled by the insert workloads, replaced inside the measured call once full
+  @State(Scope.Thread)
+  public static class IntInserts {
+    LatencyInserts<IntSetBackend> _inserts;
+
+    @Setup
+    public void create(BenchmarkLatency bench){
+      _inserts = new LatencyInserts<>(bench._backend, INSERTS_PER_SET, bench._backend::createIntSet);
+    }
+
+    @TearDown
+    public void close(){
+      _inserts.close();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class StringInserts {
+    LatencyInserts<SetBackend<String>> _inserts;
+
+    @Setup
+    public void create(BenchmarkLatency bench){
+      _inserts = new LatencyInserts<>(bench._backend, INSERTS_PER_SET,
+          entries -> bench._backend.create(String.class, entries, AVERAGE_STRING));
+    }
+
+    @TearDown
+    public void close(){
+      _inserts.close();
+    }
+  }
+
+  @Benchmark
+  public boolean containsInt(Probes probes){
+    return _intSet.contains(_intProbes[probes._next++ & PROBE_MASK]);
+  }
+
+  @Benchmark
+  public boolean containsString(Probes probes){
+    return _stringSet.contains(_stringProbes[probes._next++ & PROBE_MASK]);
+  }
+
+  @Benchmark
+  public boolean insertInt(IntInserts inserts){
+    int key = inserts._inserts.next();
+    return inserts._inserts.set().add(_intInserts[key]);
+  }
+
+  @Benchmark
+  public boolean insertString(StringInserts inserts){
+    int key = inserts._inserts.next();
+    return inserts._inserts.set().add(_stringInserts[key]);
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkLatency.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
@@ -0,0 +1,126 @@
+package org.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  Many concurrent DISTINCT queries sharing one MemoryBudget of _budgetMb
+  Every invocation is one query: it opens a Query limited to a quarter of the budget,
+  adds its keys to a set charged to it and closes both. Most queries add a few
+  thousand to SMALL_KEYS keys, one in RUNAWAY_EVERY adds RUNAWAY_KEYS, more than its
+  limit allows, and must be stopped without starving the others.
+  _policy FAIL_FAST rejects a query as soon as a reservation does not fit; WAIT passes
+  a SpillCallback which, as backpressure, parks until other queries have released
+  enough of the global budget (at most MAX_WAIT_NANOS) before the reservation is
+  retried. Sets are created with a quarter of their keys as the entries hint, so
+  they grow, and reserve, while the query runs.
+  completed and rejected count queries; after every iteration the highest global
+  usage seen is printed, which must stay within the budget. Use -t to vary the
+  number of concurrent queries.
+ */
+
+@BenchmarkMode({Mode.Throughput})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class BenchmarkMemoryBudget {
+  private static final int SMALL_KEYS = 1 << 16;
+  private static final int RUNAWAY_KEYS = 1 << 22;
+  private static final int RUNAWAY_EVERY = 32;
+  private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  public enum Policy { FAIL_FAST, WAIT }
+
+  @Param({"OFFHEAP","GROWABLE_CHRONICLE","MAPDB"})
+  SetBackendType _backend;
+
+  @Param({"FAIL_FAST","WAIT"})
+  Policy _policy;
+
+  @Param({"64"})
+  int _budgetMb;
+
+  private MemoryBudget _budget;
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Queries {
+    public long completed;
+    public long rejected;
+    private int _next;
+
+    @Setup(Level.Iteration)
+    public void reset(){
+      completed = 0;
+      rejected = 0;
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void setUp(){
+    _budget = new MemoryBudget((long)_budgetMb << 20);
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown(){
+    System.out.println("\nPeak " + _budget.peak() + " of " + _budget.limit() + " bytes, " + _budget.rejections() + " reservations rejected");
+    if(_budget.used() != 0)
+      throw new IllegalStateException("Queries leaked " + _budget.used() + " bytes of the budget");
+  }
+
+  // backpressure: waits for other queries to release bytesNeeded, the reservation is retried either way
+  private void waitForMemory(MemoryBudget.Query query, long bytesNeeded){
+    if(query.used() + bytesNeeded > query.limit())
+      return; // over its own limit, no other query can help
+    long deadline = System.nanoTime() + MAX_WAIT_NANOS;
+    while(_budget.available() < bytesNeeded && System.nanoTime() < deadline)
+      LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+  }
+
+  @Benchmark
+  public long query(Queries queries){
+    int id = queries._next++;
+    int keys = id % RUNAWAY_EVERY == 0 ? RUNAWAY_KEYS : ThreadLocalRandom.current().nextInt(1024, SMALL_KEYS);
+    MemoryBudget.SpillCallback onOverrun = _policy == Policy.WAIT ? this::waitForMemory : null;
+    String queryId = Thread.currentThread().getName() + "-" + id;
+    try (MemoryBudget.Query query = _budget.openQuery(queryId, _budget.limit()/4, onOverrun);
+         IntSetBackend set = _backend.createIntSet(keys/4, query)) {
+      int seed = ThreadLocalRandom.current().nextInt();
+      for(int i=0;i<keys;++i)
+        set.add(OffHeapIntSet.hash(seed + i));
+      queries.completed++;
+      return set.size();
+    } catch(MemoryBudgetExceededException e){
+      queries.rejected++;
+      return 0;
+    }
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkMemoryBudget.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
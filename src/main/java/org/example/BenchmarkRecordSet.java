@@ -0,0 +1,146 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  Multi column DISTINCT: Record keys of _numColumns columns, taken in order from
+  _columnTypes, stored with RecordCodec in every SetBackend
+  Column i has _cardinalities[i % n] distinct values, so the number of distinct
+  records is at most the product of the column cardinalities.
+  insertRecord scores records per second, containsRecord probes per second and
+  iterateRecord full scans of the preloaded set per second, whose size depends on
+  the params. insertRecord also reports the distinct records and memoryUsed() of its
+  set as counters (0 for HASHSET, whose records are on the heap).
+  insertRecord adds to a fresh, empty set per invocation (see
+  BenchmarkSetBackends.FreshSet), so set creation and close are not scored.
+ */
+
+@BenchmarkMode({Mode.Throughput})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkRecordSet {
+  private static final int NUM_RECORDS = 1000000; // records generated per insert, duplicates included
+  private static final int NUM_PROBES = 1 << 16;
+
+  @Param({"CHRONICLE","MAPDB","HASHSET","OFFHEAP"})
+  SetBackendType _backend;
+
+  @Param({"2","4","6"})
+  int _numColumns;
+
+  @Param({"INT,STRING,LONG,DICT_ID,DOUBLE,STRING"}) // column types, the first _numColumns are used
+  String _columnTypes;
+
+  @Param({"1000"}) // distinct values per column, cycled over the columns e.g. "10,1000"
+  String _cardinalities;
+
+  private RecordCodec _codec;
+  private Record[] _records;
+  private Record[] _probes;
+  private SetBackend<Record> _set;
+  private int _probe;
+
+  @Setup
+  public void setUp(){
+    String[] typeNames = _columnTypes.split(",");
+    ColumnType[] columns = new ColumnType[_numColumns];
+    for(int i=0;i<_numColumns;++i)
+      columns[i] = ColumnType.valueOf(typeNames[i % typeNames.length].trim());
+
+    String[] cardinalityValues = _cardinalities.split(",");
+    int[] cardinalities = new int[cardinalityValues.length];
+    for(int i=0;i<cardinalities.length;++i)
+      cardinalities[i] = Integer.parseInt(cardinalityValues[i].trim());
+
+    RandomUtils random = new RandomUtils();
+    _codec = new RecordCodec(columns);
+    _records = new Record[NUM_RECORDS];
+    for(int i=0;i<NUM_RECORDS;++i)
+      _records[i] = random.generateRecord(columns, cardinalities);
+    _probes = new Record[NUM_PROBES];
+    for(int i=0;i<NUM_PROBES;++i)
+      _probes[i] = random.generateRecord(columns, cardinalities);
+
+    // populate set for iterator and contains workloads
+    _set = _backend.createRecordSet(_codec, NUM_RECORDS, _records[0]);
+    for(Record record : _records)
+      _set.add(record);
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Footprint {
+    public long distinctRecords;
+    public long offHeapBytes;
+  }
+
+  @TearDown
+  public void tearDown(){
+    _set.close();
+  }
+
+  @State(Scope.Thread)
+  public static class FreshRecordSet extends BenchmarkSetBackends.FreshSet<SetBackend<Record>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkRecordSet bench, NativeLeakTracker tracker){
+      open(tracker, bench._backend.createRecordSet(bench._codec, NUM_RECORDS, bench._records[0]));
+    }
+  }
+
+  /*
+    Workload: insert NUM_RECORDS generated records into a new set
+    Collision: depends on _cardinalities and _numColumns
+   */
+  @Benchmark
+  @OperationsPerInvocation(NUM_RECORDS)
+  public long insertRecord(FreshRecordSet fresh, Footprint footprint){
+    SetBackend<Record> set = fresh._set;
+    for(Record record : _records)
+      set.add(record);
+    footprint.distinctRecords = set.size();
+    footprint.offHeapBytes = set.memoryUsed();
+    return footprint.distinctRecords;
+  }
+
+  @Benchmark
+  public boolean containsRecord(){
+    return _set.contains(_probes[_probe++ & (NUM_PROBES-1)]);
+  }
+
+  @Benchmark
+  public void iterateRecord(Blackhole bh){
+    Iterator<Record> it = _set.iterator();
+    while(it.hasNext()){
+      bh.consume(it.next());
+    }
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkRecordSet.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
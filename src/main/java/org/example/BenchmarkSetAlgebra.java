@@ -0,0 +1,184 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  SetAlgebra UNION, INTERSECT, EXCEPT and intersection size across size ratios
+  A large set of LARGE_KEYS keys is combined with a small one _ratio times smaller,
+  of which _overlap are also in the large set, both in _backend and the result too.
+  EXCEPT is large EXCEPT small, which has to stream the large side.
+  The Boxed workloads intersect the way Set.addAll and retainAll do, iterating key
+  objects and probing with contains, as the baseline.
+  Scores include creating and closing the result set.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkSetAlgebra {
+  private static final int LARGE_KEYS = 1 << 20;
+  private static final String AVERAGE_STRING = StringUtils.repeat("a", 16);
+
+  @Param({"CHRONICLE","MAPDB","OFFHEAP"})
+  SetBackendType _backend;
+
+  @Param({"1","10","100","1000"}) // large size / small size
+  int _ratio;
+
+  @Param({"0.5"}) // share of the small set's keys also in the large set
+  double _overlap;
+
+  private IntSetBackend _largeInts;
+  private IntSetBackend _smallInts;
+  private SetBackend<String> _largeStrings;
+  private SetBackend<String> _smallStrings;
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    int smallKeys = LARGE_KEYS/_ratio;
+    int shared = (int)(smallKeys*_overlap);
+    _largeInts = _backend.createIntSet(LARGE_KEYS);
+    _smallInts = _backend.createIntSet(smallKeys);
+    _largeStrings = _backend.create(String.class, LARGE_KEYS, AVERAGE_STRING);
+    _smallStrings = _backend.create(String.class, smallKeys, AVERAGE_STRING);
+    // OffHeapIntSet.hash is a bijection, so keys i are distinct and scattered; the small set takes
+    // shared keys of the large one and continues past LARGE_KEYS
+    for(int i=0;i<LARGE_KEYS;++i){
+      int key = OffHeapIntSet.hash(i);
+      _largeInts.add(key);
+      _largeStrings.add(stringKey(random, key));
+    }
+    random = new RandomUtils();
+    for(int i=0;i<smallKeys;++i){
+      int key = OffHeapIntSet.hash(i < shared ? i : LARGE_KEYS + i);
+      _smallInts.add(key);
+      _smallStrings.add(stringKey(random, key));
+    }
+  }
+
+  // the same key gets the same string as long as random replays the same sequence
+  private static String stringKey(RandomUtils random, int key){
+    return Integer.toHexString(key) + '-' + random.generateRandomString(1, 20);
+  }
+
+  @TearDown
+  public void tearDown(){
+    _largeInts.close();
+    _smallInts.close();
+    _largeStrings.close();
+    _smallStrings.close();
+  }
+
+  private SetBackend<Integer> intSet(long entries){
+    return _backend.createIntSet(entries);
+  }
+
+  private SetBackend<String> stringSet(long entries){
+    return _backend.create(String.class, entries, AVERAGE_STRING);
+  }
+
+  @Benchmark
+  public long unionInt(){
+    try (SetBackend<Integer> result = SetAlgebra.union(_largeInts, _smallInts, Integer.class, this::intSet)) {
+      return result.size();
+    }
+  }
+
+  @Benchmark
+  public long intersectInt(){
+    try (SetBackend<Integer> result = SetAlgebra.intersect(_largeInts, _smallInts, Integer.class, this::intSet)) {
+      return result.size();
+    }
+  }
+
+  @Benchmark
+  public long differenceInt(){
+    try (SetBackend<Integer> result = SetAlgebra.difference(_largeInts, _smallInts, Integer.class, this::intSet)) {
+      return result.size();
+    }
+  }
+
+  @Benchmark
+  public long intersectionSizeInt(){
+    return SetAlgebra.intersectionSize(_largeInts, _smallInts, Integer.class);
+  }
+
+  @Benchmark
+  public long intersectIntBoxed(){
+    try (SetBackend<Integer> result = intSet(_smallInts.size())) {
+      Iterator<Integer> it = _smallInts.iterator();
+      while(it.hasNext()){
+        Integer key = it.next();
+        if(_largeInts.contains(key))
+          result.add(key);
+      }
+      return result.size();
+    }
+  }
+
+  @Benchmark
+  public long unionString(){
+    try (SetBackend<String> result = SetAlgebra.union(_largeStrings, _smallStrings, String.class, this::stringSet)) {
+      return result.size();
+    }
+  }
+
+  @Benchmark
+  public long intersectString(){
+    try (SetBackend<String> result = SetAlgebra.intersect(_largeStrings, _smallStrings, String.class, this::stringSet)) {
+      return result.size();
+    }
+  }
+
+  @Benchmark
+  public long differenceString(){
+    try (SetBackend<String> result = SetAlgebra.difference(_largeStrings, _smallStrings, String.class, this::stringSet)) {
+      return result.size();
+    }
+  }
+
+  @Benchmark
+  public long intersectionSizeString(){
+    return SetAlgebra.intersectionSize(_largeStrings, _smallStrings, String.class);
+  }
+
+  @Benchmark
+  public long intersectStringBoxed(){
+    try (SetBackend<String> result = stringSet(_smallStrings.size())) {
+      Iterator<String> it = _smallStrings.iterator();
+      while(it.hasNext()){
+        String key = it.next();
+        if(_largeStrings.contains(key))
+          result.add(key);
+      }
+      return result.size();
+    }
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkSetAlgebra.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
@@ -0,0 +1,405 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  Benchmark all our Workloads against every SetBackend under the same conditions
+  Backends are chosen per key type through the _backend param of IntKeys, StringKeys
+  and ByteArrayKeys, e.g. -p _backend=CHRONICLE
+  Int workloads go through IntSetBackend so OFFHEAP runs them without boxing
+  -p _storage=MMAP runs Chronicle and MapDB on memory mapped files (see StorageType),
+  insert and contains workloads report the page faults of each iteration
+  All keys and probes are generated up front by a seeded RandomUtils, so measured
+  methods only read arrays and every backend sees the same keys in the same order.
+  _distribution picks how random inserts and probes are spread over the keys and
+  _hitRatio the share of present keys among the probes of the Mixed workloads.
+  Insert workloads get a fresh, empty set per invocation (see FreshSet) and a
+  NativeLeakTracker fails the run if an iteration does not give its memory back.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkSetBackends {
+  private static final int NUM_KEYS_PRELOAD = 1000000;
+  private static final int GB_TO_BYTES = 1024*1024*1024; // conversion constant
+  private static final int COLLISION_FACTOR = 100;  //about COLLISION_FACTOR many collisions per key for collision workloads
+  private static final int NUM_PROBES = 1 << 18;     // contains workloads cycle through this many pre-generated probes
+  private static final int PROBE_MASK = NUM_PROBES - 1;
+  private static final int MAX_INT_PROBE = 1500000;  // int misses are drawn from [NUM_KEYS_PRELOAD, MAX_INT_PROBE)
+  @Param({"0.005"}) //GB of data to store
+  float _gb;
+
+  @Param({"5"})
+  //@Param({"5","20","60","150"}) // average key length for variable length workloads, ignored by OFFHEAP
+  int _keyLength;
+
+  @Param({"UNIFORM"}) // ZIPFIAN, HOTSPOT
+  KeyDistribution _distribution;
+
+  @Param({"0.5"}) // share of hits among the probes of the Mixed workloads
+  double _hitRatio;
+
+  int numEntries(int bytesPerEntry){
+    return (int)(GB_TO_BYTES*_gb)/bytesPerEntry;
+  }
+
+  @State(Scope.Benchmark)
+  public static class IntKeys {
+    @Param({"CHRONICLE","MAPDB","HASHSET","OFFHEAP"})
+    SetBackendType _backend;
+
+    @Param({"MEMORY"}) // MMAP for file backed Chronicle and MapDB sets
+    StorageType _storage;
+
+    IntSetBackend _set;
+    int[] _hits;
+    int[] _misses;
+    int[] _mixed;
+    int[] _randomCollisionKeys;
+    int _probe;
+
+    @Setup
+    public void setUp(BenchmarkSetBackends bench){
+      _set = _backend.createIntSet(NUM_KEYS_PRELOAD, _storage);
+
+      // populate sets for iterator and contains workloads
+      for(int value=0;value<NUM_KEYS_PRELOAD;++value)
+        _set.add(value);
+
+      RandomUtils random = new RandomUtils();
+      _hits = random.generateIntProbes(NUM_PROBES, NUM_KEYS_PRELOAD, MAX_INT_PROBE, 1.0, bench._distribution);
+      _misses = random.generateIntProbes(NUM_PROBES, NUM_KEYS_PRELOAD, MAX_INT_PROBE, 0.0, bench._distribution);
+      _mixed = random.generateIntProbes(NUM_PROBES, NUM_KEYS_PRELOAD, MAX_INT_PROBE, bench._hitRatio, bench._distribution);
+
+      int numEntries = bench.numEntries(4);
+      _randomCollisionKeys = random.generateIndexes(numEntries, Math.max(1, numEntries/COLLISION_FACTOR), bench._distribution);
+    }
+
+    @TearDown
+    public void tearDown(){
+      _set.close();
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class StringKeys {
+    @Param({"CHRONICLE","MAPDB","HASHSET","OFFHEAP"})
+    SetBackendType _backend;
+
+    @Param({"MEMORY"}) // MMAP for file backed Chronicle and MapDB sets
+    StorageType _storage;
+
+    SetBackend<String> _set;
+    String[] _hits;
+    String[] _misses;
+    String[] _mixed;
+    String[] _lowCollisionKeys;
+    String[] _collisionKeys;
+    int _probe;
+
+    @Setup
+    public void setUp(BenchmarkSetBackends bench){
+      String str = StringUtils.repeat("a", 50);
+      _set = _backend.create(String.class, NUM_KEYS_PRELOAD, str, _storage);
+
+      // populate sets for iterator and contains workloads
+      RandomUtils random = new RandomUtils();
+      String[] present = random.generateStrings(NUM_KEYS_PRELOAD, 1, 100);
+      for(String key : present)
+        _set.add(key);
+
+      // longer than any preloaded key, so never present
+      String[] absent = random.generateStrings(NUM_PROBES, 101, 150);
+      _hits = random.generateProbes(present, absent, new String[NUM_PROBES], 1.0, bench._distribution);
+      _misses = random.generateProbes(present, absent, new String[NUM_PROBES], 0.0, bench._distribution);
+      _mixed = random.generateProbes(present, absent, new String[NUM_PROBES], bench._hitRatio, bench._distribution);
+
+      // char in Java is 2 bytes and average length is maxLength/2
+      _lowCollisionKeys = random.generateStrings(bench.numEntries(150), 1, 150);
+      _collisionKeys = random.generateStrings(bench.numEntries(20), 1, 20);
+    }
+
+    @TearDown
+    public void tearDown(){
+      _set.close();
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class ByteArrayKeys {
+    @Param({"CHRONICLE","MAPDB","HASHSET","OFFHEAP"})
+    SetBackendType _backend;
+
+    @Param({"MEMORY"}) // MMAP for file backed Chronicle and MapDB sets
+    StorageType _storage;
+
+    byte[][] _lowCollisionKeys;
+    byte[][] _collisionKeys;
+
+    @Setup
+    public void setUp(BenchmarkSetBackends bench){
+      RandomUtils random = new RandomUtils();
+      // average length is maxLength/2
+      _lowCollisionKeys = random.generateByteArrays(bench.numEntries(120/2), 120);
+      _collisionKeys = random.generateByteArrays(bench.numEntries(10/2), 10);
+    }
+  }
+
+  /*
+    Set of one insert invocation, created before and closed after the measured adds,
+    so scores are insert time only and every invocation starts from an empty set.
+    Subclasses size it for the distinct keys of their workload. Level.Invocation
+    costs some JMH bookkeeping per call, negligible against inserting _gb of keys.
+   */
+  public abstract static class FreshSet<S extends AutoCloseable> {
+    S _set;
+    private NativeLeakTracker _tracker;
+
+    void open(NativeLeakTracker tracker, S set){
+      _tracker = tracker;
+      _set = tracker.open(set);
+    }
+
+    @TearDown(Level.Invocation)
+    public void close(){
+      _tracker.close(_set);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class IntSortedNoCollisionSet extends FreshSet<IntSetBackend> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkSetBackends bench, IntKeys keys, NativeLeakTracker tracker){
+      open(tracker, keys._backend.createIntSet(bench.numEntries(4), keys._storage));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class IntSortedCollisionSet extends FreshSet<IntSetBackend> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkSetBackends bench, IntKeys keys, NativeLeakTracker tracker){
+      open(tracker, keys._backend.createIntSet(bench.numEntries(4)/COLLISION_FACTOR + 1, keys._storage));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class IntRandomCollisionSet extends FreshSet<IntSetBackend> {
+    @Setup(Level.Invocation)
+    public void create(IntKeys keys, NativeLeakTracker tracker){
+      open(tracker, keys._backend.createIntSet(Math.max(1, keys._randomCollisionKeys.length/COLLISION_FACTOR), keys._storage));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class StringLowCollisionSet extends FreshSet<SetBackend<String>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkSetBackends bench, StringKeys keys, NativeLeakTracker tracker){
+      open(tracker, keys._backend.create(String.class, keys._lowCollisionKeys.length, StringUtils.repeat("a", bench._keyLength), keys._storage));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class StringCollisionSet extends FreshSet<SetBackend<String>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkSetBackends bench, StringKeys keys, NativeLeakTracker tracker){
+      open(tracker, keys._backend.create(String.class, keys._collisionKeys.length, StringUtils.repeat("a", bench._keyLength), keys._storage));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ByteArrayLowCollisionSet extends FreshSet<SetBackend<byte[]>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkSetBackends bench, ByteArrayKeys keys, NativeLeakTracker tracker){
+      open(tracker, keys._backend.create(byte[].class, keys._lowCollisionKeys.length, new byte[bench._keyLength], keys._storage));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ByteArrayCollisionSet extends FreshSet<SetBackend<byte[]>> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkSetBackends bench, ByteArrayKeys keys, NativeLeakTracker tracker){
+      open(tracker, keys._backend.create(byte[].class, keys._collisionKeys.length, new byte[bench._keyLength], keys._storage));
+    }
+  }
+
+/*
+    Workload: Int Sorted with no collision
+    Number of entries : based on _gb of storage
+   */
+
+  @Benchmark
+  public void insertIntSortedNoCollision(IntSortedNoCollisionSet fresh, PageFaultCounters faults){
+    int numEntries = numEntries(4);
+    IntSetBackend set = fresh._set;
+    int value;
+    for(value=0;value<numEntries;++value)
+      set.add(value);
+  }
+
+/*
+    Workload: Int Sorted with collision
+    Number of entries : based on _gb of storage
+    Collision: COLLISION_FACTOR many collision per key
+   */
+
+  @Benchmark
+  public void insertIntSortedCollision(IntSortedCollisionSet fresh, PageFaultCounters faults){
+    int numEntries = numEntries(4);
+    int maxValue = numEntries/COLLISION_FACTOR;
+    IntSetBackend set = fresh._set;
+    int value,count=0;
+
+    for(value=0;value<=maxValue;++value) {
+      while(count<(value*COLLISION_FACTOR) && count<numEntries) {
+        set.add(value);
+        ++count;
+      }
+    }
+  }
+
+/*
+    Workload: Int Random with collision
+    Number of entries : based on _gb of storage
+    Collision: COLLISION_FACTOR many collision per key
+   */
+
+  @Benchmark
+  public void insertIntRandomCollision(IntKeys keys, IntRandomCollisionSet fresh, PageFaultCounters faults){
+    IntSetBackend set = fresh._set;
+    for(int value : keys._randomCollisionKeys)
+      set.add(value);
+  }
+
+/*
+   Workload: Random String with minimum collision
+   Number of entries : based on _gb of storage
+   Collision: maxLength set to 150 so 1/2^25 probability of collision
+  */
+
+  @Benchmark
+  public void insertStringRandomLowCollision(StringKeys keys, StringLowCollisionSet fresh, PageFaultCounters faults){
+    SetBackend<String> set = fresh._set;
+    for(String key : keys._lowCollisionKeys)
+      set.add(key);
+  }
+
+
+/*
+   Workload: Random String with collision
+   Number of entries : based on _gb of storage
+   Collision: maxLength set to 20 for about 1:10 collision
+  */
+
+  @Benchmark
+  public void insertStringRandomCollision(StringKeys keys, StringCollisionSet fresh, PageFaultCounters faults){
+    SetBackend<String> set = fresh._set;
+    for(String key : keys._collisionKeys)
+      set.add(key);
+  }
+
+
+/*
+  Workload: Random Byte Array with minimum collision
+  Number of entries : based on _gb of storage
+  Collision: maxLength set to 120 so collisions are negligible
+  */
+
+  @Benchmark
+  public void insertByteArrayRandomLowCollision(ByteArrayKeys keys, ByteArrayLowCollisionSet fresh, PageFaultCounters faults){
+    SetBackend<byte[]> set = fresh._set;
+    for(byte[] key : keys._lowCollisionKeys)
+      set.add(key);
+  }
+
+
+/*
+  Workload: Random Byte Array with collision
+  Number of entries : based on _gb of storage
+  Collision: maxLength set to 10 for about 1:10 collision
+  */
+
+  @Benchmark
+  public void insertByteArrayRandomCollision(ByteArrayKeys keys, ByteArrayCollisionSet fresh, PageFaultCounters faults){
+    SetBackend<byte[]> set = fresh._set;
+    for(byte[] key : keys._collisionKeys)
+      set.add(key);
+  }
+
+
+
+  // ITERATOR WORKLOADS //
+  @Benchmark
+  public void iterateInt(IntKeys keys, Blackhole bh){
+    keys._set.forEach(bh::consume);
+  }
+
+  @Benchmark
+  public void iterateString(StringKeys keys){
+    Iterator<String> it = keys._set.iterator();
+    while(it.hasNext()){
+      it.next();
+    }
+  }
+
+  //  CONTAINS WORKLOADS //
+  // WithinRange probes only present keys, OutsideRange only absent ones, Mixed _hitRatio of each
+  @Benchmark
+  public boolean containsIntWithinRange(IntKeys keys, PageFaultCounters faults){
+    return keys._set.contains(keys._hits[keys._probe++ & PROBE_MASK]);
+  }
+
+  @Benchmark
+  public boolean containsIntOutsideRange(IntKeys keys, PageFaultCounters faults){
+    return keys._set.contains(keys._misses[keys._probe++ & PROBE_MASK]);
+  }
+
+  @Benchmark
+  public boolean containsIntMixed(IntKeys keys, PageFaultCounters faults){
+    return keys._set.contains(keys._mixed[keys._probe++ & PROBE_MASK]);
+  }
+
+  @Benchmark
+  public boolean containsStringWithinRange(StringKeys keys, PageFaultCounters faults){
+    return keys._set.contains(keys._hits[keys._probe++ & PROBE_MASK]);
+  }
+
+  @Benchmark
+  public boolean containsStringOutsideRange(StringKeys keys, PageFaultCounters faults){
+    return keys._set.contains(keys._misses[keys._probe++ & PROBE_MASK]);
+  }
+
+  @Benchmark
+  public boolean containsStringMixed(StringKeys keys, PageFaultCounters faults){
+    return keys._set.contains(keys._mixed[keys._probe++ & PROBE_MASK]);
+  }
+
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkSetBackends.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
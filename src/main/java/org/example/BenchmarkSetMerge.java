@@ -0,0 +1,147 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  Combine step of a distributed DISTINCT: _numInputs partial sets of KEYS_PER_INPUT
+  keys each, one per segment, merged into one set
+  *Serial adds every input into one set sized for the sum of the inputs, as
+  ExampleUsages.testChronicleAddAll does, *Parallel runs SetMerge on a ForkJoinPool of
+  _parallelism workers (0 for all cores). String keys reach SetMerge as bytes
+  (forEachBytes into addKeyBytes); mergeStringSerialBytes merges the same way on one
+  thread, so its gap to mergeStringParallel is the parallelism alone and its gap to
+  mergeStringSerial the boxed iterator(). _overlap is the share of each input drawn
+  from keys common to all inputs, the rest is unique to the input.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkSetMerge {
+  private static final int KEYS_PER_INPUT = 1 << 16;
+
+  @Param({"CHRONICLE","MAPDB","HASHSET","OFFHEAP"})
+  SetBackendType _backend;
+
+  @Param({"2","8","16","64"})
+  int _numInputs;
+
+  @Param({"0.0","0.5","0.9"})
+  double _overlap;
+
+  @Param({"0"})
+  int _parallelism;
+
+  private ForkJoinPool _pool;
+  private List<IntSetBackend> _intInputs;
+  private List<SetBackend<String>> _stringInputs;
+
+  @Setup
+  public void setUp(){
+    _pool = new ForkJoinPool(_parallelism > 0 ? _parallelism : Runtime.getRuntime().availableProcessors());
+    RandomUtils random = new RandomUtils();
+    int shared = (int)(KEYS_PER_INPUT*_overlap);
+    _intInputs = new ArrayList<>();
+    _stringInputs = new ArrayList<>();
+    for(int i=0;i<_numInputs;++i){
+      IntSetBackend ints = _backend.createIntSet(KEYS_PER_INPUT);
+      SetBackend<String> strings = _backend.create(String.class, KEYS_PER_INPUT, "key-00000000");
+      // shared keys are [0, KEYS_PER_INPUT), every input draws from them, unique keys lie above
+      int[] sharedKeys = random.generateIndexes(shared, KEYS_PER_INPUT, KeyDistribution.UNIFORM);
+      for(int k=0;k<KEYS_PER_INPUT;++k){
+        int key = k < shared ? sharedKeys[k] : (i + 1)*KEYS_PER_INPUT + k;
+        ints.add(key);
+        strings.add("key-" + key);
+      }
+      _intInputs.add(ints);
+      _stringInputs.add(strings);
+    }
+  }
+
+  @TearDown
+  public void tearDown(){
+    _intInputs.forEach(IntSetBackend::close);
+    _stringInputs.forEach(SetBackend::close);
+    _pool.shutdown();
+  }
+
+  private long inputEntries(){
+    long entries = 0;
+    for(IntSetBackend input : _intInputs)
+      entries += input.size();
+    return entries;
+  }
+
+  @Benchmark
+  public long mergeIntSerial(){
+    try (IntSetBackend set = _backend.createIntSet(inputEntries())) {
+      for(IntSetBackend input : _intInputs)
+        input.forEach(set::add);
+      return set.size();
+    }
+  }
+
+  @Benchmark
+  public long mergeIntParallel(){
+    try (IntSetBackend set = SetMerge.mergeInts(_intInputs, _backend, SetMerge.partitionsFor(_pool), _pool)) {
+      return set.size();
+    }
+  }
+
+  @Benchmark
+  public long mergeStringSerial(){
+    try (SetBackend<String> set = _backend.create(String.class, inputEntries(), "key-00000000")) {
+      for(SetBackend<String> input : _stringInputs){
+        Iterator<String> it = input.iterator();
+        while(it.hasNext())
+          set.add(it.next());
+      }
+      return set.size();
+    }
+  }
+
+  @Benchmark
+  public long mergeStringSerialBytes(){
+    try (SetBackend<String> set = _backend.create(String.class, inputEntries(), "key-00000000")) {
+      for(SetBackend<String> input : _stringInputs)
+        input.forEachBytes((base, offset, length) -> set.addKeyBytes(base, offset, length, String.class));
+      return set.size();
+    }
+  }
+
+  @Benchmark
+  public long mergeStringParallel(){
+    try (SetBackend<String> set = SetMerge.merge(_stringInputs, String.class, "key-00000000", _backend,
+        SetMerge.partitionsFor(_pool), _pool)) {
+      return set.size();
+    }
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkSetMerge.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
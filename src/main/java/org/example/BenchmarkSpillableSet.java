@@ -0,0 +1,121 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  Latency of a DISTINCT of _numEntries int keys, from creating the set to closing it,
+  for a SpillableSet against a set created directly on or off heap
+  _numEntries sweeps both sides of _spillEntries to show the cost of the crossover.
+  insertSpillableByteArray adds the contents of _numEntries byte[] keys twice, as two
+  different arrays each, and fails the iteration unless the DISTINCT counted each
+  content once on both sides of the spill.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkSpillableSet {
+  private static final long SPILL_BYTES = 64L*1024*1024; // entry count threshold is hit first for int keys
+  private static final long MAX_ENTRIES = 10000000;      // size hint for the off-heap set, unknown up front
+  private static final int MAX_BYTE_ARRAY_LENGTH = 10;
+
+  @Param({"CHRONICLE","MAPDB"}) // off-heap set to spill into
+  SetBackendType _backend;
+
+  @Param({"100","10000","100000","1000000"})
+  int _numEntries;
+
+  @Param({"50000"})
+  long _spillEntries;
+
+  private int[] _keys;
+  private byte[][] _byteArrayKeys;
+  private long _byteArrayDistinct;
+  private long _byteArraySize = -1; // size of the last insertSpillableByteArray, -1 when it did not run
+
+  @Setup
+  public void setUp(){
+    RandomUtils random = new RandomUtils();
+    _keys = new int[_numEntries];
+    for(int i=0;i<_numEntries;++i)
+      _keys[i] = random.getRandomInt(0,Integer.MAX_VALUE);
+
+    byte[][] contents = random.generateByteArrays(_numEntries, MAX_BYTE_ARRAY_LENGTH);
+    Set<ByteBuffer> distinct = new HashSet<>();
+    _byteArrayKeys = new byte[2*_numEntries][];
+    for(int i=0;i<_byteArrayKeys.length;++i){
+      _byteArrayKeys[i] = contents[i % contents.length].clone();
+      distinct.add(ByteBuffer.wrap(_byteArrayKeys[i]));
+    }
+    _byteArrayDistinct = distinct.size();
+  }
+
+  @TearDown(Level.Iteration)
+  public void checkByteArrayDistinct(){
+    if(_byteArraySize >= 0 && _byteArraySize != _byteArrayDistinct)
+      throw new IllegalStateException("byte[] DISTINCT counted " + _byteArraySize + " keys, expected " + _byteArrayDistinct);
+    _byteArraySize = -1;
+  }
+
+  private long insert(SetBackend<Integer> set){
+    try (SetBackend<Integer> s = set) {
+      for(int key : _keys)
+        s.add(key);
+      return s.size();
+    }
+  }
+
+  @Benchmark
+  public long insertSpillable(){
+    return insert(new SpillableSet<>(Integer.class, _backend, _spillEntries, SPILL_BYTES, MAX_ENTRIES, null));
+  }
+
+  @Benchmark
+  public long insertSpillableByteArray(){
+    try (SetBackend<byte[]> set = new SpillableSet<>(byte[].class, _backend, _spillEntries, SPILL_BYTES, MAX_ENTRIES,
+        new byte[MAX_BYTE_ARRAY_LENGTH])) {
+      for(byte[] key : _byteArrayKeys)
+        set.add(key);
+      _byteArraySize = set.size();
+      return _byteArraySize;
+    }
+  }
+
+  @Benchmark
+  public long insertOffHeap(){
+    return insert(_backend.create(Integer.class, MAX_ENTRIES, null));
+  }
+
+  @Benchmark
+  public long insertHeap(){
+    return insert(SetBackendType.HASHSET.create(Integer.class, MAX_ENTRIES, null));
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkSpillableSet.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
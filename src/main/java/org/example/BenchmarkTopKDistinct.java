@@ -0,0 +1,142 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+  SELECT DISTINCT key ORDER BY key LIMIT _k over NUM_ROWS int rows
+  topKDistinct runs the rows through a TopKDistinct; fullDistinct materialises the
+  whole DISTINCT in an OFFHEAP set first, as the set workloads do, then sorts its
+  keys and keeps the first _k. Rows hold every key COLLISION_FACTOR times:
+    SORTED   ascending, as insertIntSortedCollision, the scan stops as soon as
+             canImprove() says the rest cannot beat the result
+    REVERSE  descending, every new key beats the boundary: the worst case
+    RANDOM   RandomUtils.generateIndexes, most rows fall behind the boundary early
+  The rows scanned and hashed and the native memory of the last invocation are
+  printed after each iteration.
+ */
+
+@BenchmarkMode({Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkTopKDistinct {
+  private static final int NUM_ROWS = 1 << 23;
+  private static final int COLLISION_FACTOR = 10; // rows per distinct key
+  private static final int NUM_DISTINCT = NUM_ROWS / COLLISION_FACTOR;
+
+  public enum InputOrder {
+    SORTED,
+    REVERSE,
+    RANDOM
+  }
+
+  @Param({"10","1000","100000"})
+  int _k;
+
+  @Param({"SORTED","REVERSE","RANDOM"})
+  InputOrder _order;
+
+  private int[] _rows;
+  private long _scanned;
+  private long _hashed;
+  private long _memoryUsed;
+
+  @Setup
+  public void setUp(){
+    _rows = new int[NUM_ROWS];
+    switch(_order){
+      case SORTED:
+        for(int i=0;i<NUM_ROWS;++i)
+          _rows[i] = i/COLLISION_FACTOR;
+        break;
+      case REVERSE:
+        for(int i=0;i<NUM_ROWS;++i)
+          _rows[i] = (NUM_ROWS-1-i)/COLLISION_FACTOR;
+        break;
+      case RANDOM:
+        _rows = new RandomUtils().generateIndexes(NUM_ROWS, NUM_DISTINCT, KeyDistribution.UNIFORM);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown order " + _order);
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void report(){
+    System.out.println("\n" + _order + " k=" + _k + ": scanned " + _scanned + " of " + NUM_ROWS + " rows, hashed "
+        + _hashed + ", native bytes " + _memoryUsed);
+  }
+
+  @State(Scope.Thread)
+  public static class FreshTopK extends BenchmarkSetBackends.FreshSet<TopKDistinct> {
+    @Setup(Level.Invocation)
+    public void create(BenchmarkTopKDistinct bench, NativeLeakTracker tracker){
+      open(tracker, new TopKDistinct(bench._k, false));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class FreshFullSet extends BenchmarkSetBackends.FreshSet<IntSetBackend> {
+    @Setup(Level.Invocation)
+    public void create(NativeLeakTracker tracker){
+      open(tracker, SetBackendType.OFFHEAP.createIntSet(NUM_DISTINCT));
+    }
+  }
+
+  @Benchmark
+  public int[] topKDistinct(FreshTopK fresh){
+    TopKDistinct topK = fresh._set;
+    int[] rows = _rows;
+    // only sorted input bounds the rest of the scan by the current row
+    boolean bounded = _order == InputOrder.SORTED;
+    int scanned = 0;
+    while(scanned < rows.length){
+      int key = rows[scanned++];
+      if(!topK.offer(key) && bounded && !topK.canImprove(key))
+        break;
+    }
+    _scanned = scanned;
+    _hashed = scanned - topK.rejected();
+    _memoryUsed = topK.memoryUsed();
+    return topK.result();
+  }
+
+  @Benchmark
+  public int[] fullDistinct(FreshFullSet fresh){
+    IntSetBackend set = fresh._set;
+    set.addAll(_rows, _rows.length);
+    int[] keys = new int[(int) set.size()];
+    int[] next = new int[1];
+    set.forEach(key -> keys[next[0]++] = key);
+    Arrays.sort(keys);
+    _scanned = _rows.length;
+    _hashed = _rows.length;
+    _memoryUsed = set.memoryUsed();
+    return Arrays.copyOf(keys, Math.min(_k, keys.length));
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkTopKDistinct.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
@@ -0,0 +1,32 @@
+package org.example;
+
+/*
+  Match bitmaps of the block contains APIs: bit i of word i >>> 6 is set when key i
+  of the block is in the set
+ */
+final class Bitmaps {
+  private Bitmaps() {
+  }
+
+  // longs needed for a bitmap over length keys
+  static int words(int length) {
+    return (length + 63) >>> 6;
+  }
+
+  static boolean get(long[] bitmap, int i) {
+    return (bitmap[i >>> 6] & (1L << i)) != 0;
+  }
+
+  // writes the indexes of the set bits below length to matches, returns how many
+  static int toIndexes(long[] bitmap, int length, int[] matches) {
+    int count = 0;
+    for (int w = 0; w < words(length); w++) {
+      long word = bitmap[w];
+      while (word != 0) {
+        matches[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+import java.util.Iterator;
+
+/*
+  ByteArraySetBackend over any SetBackend<byte[]>, blocks are added key by key
+ */
+public class BoxedByteArraySetBackend implements ByteArraySetBackend {
+  private final SetBackend<byte[]> _set;
+
+  public BoxedByteArraySetBackend(SetBackend<byte[]> set) {
+    _set = set;
+  }
+
+  @Override
+  public boolean add(byte[] key) {
+    return _set.add(key);
+  }
+
+  @Override
+  public boolean contains(byte[] key) {
+    return _set.contains(key);
+  }
+
+  @Override
+  public Iterator<byte[]> iterator() {
+    return _set.iterator();
+  }
+
+  @Override
+  public long size() {
+    return _set.size();
+  }
+
+  @Override
+  public long memoryUsed() {
+    return _set.memoryUsed();
+  }
+
+  @Override
+  public void close() {
+    _set.close();
+  }
+}
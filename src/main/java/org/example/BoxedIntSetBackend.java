@@ -0,0 +1,66 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.function.IntConsumer;
+
+/*
+  IntSetBackend over any SetBackend<Integer>, boxing every key on the way in
+ */
+public class BoxedIntSetBackend implements IntSetBackend {
+  private final SetBackend<Integer> _set;
+
+  public BoxedIntSetBackend(SetBackend<Integer> set) {
+    _set = set;
+  }
+
+  @Override
+  public boolean add(int key) {
+    return _set.add(key);
+  }
+
+  @Override
+  public boolean contains(int key) {
+    return _set.contains(key);
+  }
+
+  // through forEachBytes, so sets that store keys off-heap never box them
+  @Override
+  public void forEach(IntConsumer consumer) {
+    _set.forEachBytes((base, offset, length) -> consumer.accept(OffHeapVarKeySet.MEMORY.readInt(base, offset)));
+  }
+
+  @Override
+  public boolean add(Integer key) {
+    return _set.add(key);
+  }
+
+  @Override
+  public boolean contains(Integer key) {
+    return _set.contains(key);
+  }
+
+  @Override
+  public Iterator<Integer> iterator() {
+    return _set.iterator();
+  }
+
+  @Override
+  public void forEachBytes(BytesConsumer consumer) {
+    _set.forEachBytes(consumer);
+  }
+
+  @Override
+  public long size() {
+    return _set.size();
+  }
+
+  @Override
+  public long memoryUsed() {
+    return _set.memoryUsed();
+  }
+
+  @Override
+  public void close() {
+    _set.close();
+  }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/*
+  Charges a MemoryReservation for a set which allocates native memory on its own
+  (Chronicle, MapDB, BITMAP), where nothing can be reserved before the library grows
+  memoryUsed() is reserved when the set is wrapped and read again every CHECK_INTERVAL
+  new keys and after importKeys, reserving the growth since. Unlike the OFFHEAP sets,
+  which reserve before they allocate, these may overshoot a limit by one growth step
+  of the library (a MapDB allocation increment, a GrowableChronicleSet generation).
+  When the growth cannot be reserved the key that triggered the check is already in
+  the set and add throws; the set keeps working and the next check reserves again.
+ */
+public class BudgetedSet<K> implements SetBackend<K> {
+  private static final int CHECK_INTERVAL = 1024;
+
+  private final SetBackend<K> _set;
+  private final MemoryReservation _reservation;
+  private long _reserved;
+  private int _sinceCheck;
+
+  // closes set if its current memoryUsed() cannot be reserved
+  public BudgetedSet(SetBackend<K> set, MemoryReservation reservation) {
+    _set = set;
+    _reservation = reservation;
+    try {
+      account();
+    } catch (RuntimeException e) {
+      set.close();
+      throw e;
+    }
+  }
+
+  private void account() {
+    _sinceCheck = 0;
+    long used = _set.memoryUsed();
+    if (used > _reserved) {
+      _reservation.reserve(used - _reserved);
+    } else if (used < _reserved) {
+      _reservation.release(_reserved - used);
+    }
+    _reserved = used;
+  }
+
+  @Override
+  public boolean add(K key) {
+    boolean added = _set.add(key);
+    if (added && ++_sinceCheck == CHECK_INTERVAL) {
+      account();
+    }
+    return added;
+  }
+
+  @Override
+  public boolean contains(K key) {
+    return _set.contains(key);
+  }
+
+  @Override
+  public int containsBlock(K[] keys, int length, long[] bitmap) {
+    return _set.containsBlock(keys, length, bitmap);
+  }
+
+  @Override
+  public int containsBlock(K[] keys, int length, int[] matches) {
+    return _set.containsBlock(keys, length, matches);
+  }
+
+  @Override
+  public Iterator<K> iterator() {
+    return _set.iterator();
+  }
+
+  @Override
+  public void forEachBytes(BytesConsumer consumer) {
+    _set.forEachBytes(consumer);
+  }
+
+  @Override
+  public ByteBuffer exportKeys() {
+    return _set.exportKeys();
+  }
+
+  @Override
+  public long importKeys(ByteBuffer block, Class<K> keyClass) {
+    long added = _set.importKeys(block, keyClass);
+    account();
+    return added;
+  }
+
+  @Override
+  public long size() {
+    return _set.size();
+  }
+
+  @Override
+  public long memoryUsed() {
+    return _set.memoryUsed();
+  }
+
+  @Override
+  public void close() {
+    _set.close();
+    _reservation.release(_reserved);
+    _reserved = 0;
+  }
+}
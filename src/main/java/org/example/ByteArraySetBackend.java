@@ -0,0 +1,54 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+  SetBackend of byte[] keys which also takes whole blocks of keys in columnar layout,
+  as our query engine hands them over. Backends without a block path of their own
+  are adapted through BoxedByteArraySetBackend and copy out one key at a time.
+ */
+public interface ByteArraySetBackend extends SetBackend<byte[]> {
+
+  /*
+    data holds the key bytes back to back, offsets numKeys + 1 ints (in its byte order)
+    where key i is data[offsets[i], offsets[i + 1]), both relative to the buffer
+    positions. Returns how many keys were new.
+   */
+  default int addAll(ByteBuffer offsets, ByteBuffer data) {
+    int first = offsets.position();
+    int numKeys = offsets.remaining() / Integer.BYTES - 1;
+    int added = 0;
+    for (int i = 0; i < numKeys; i++) {
+      int from = offsets.getInt(first + i * Integer.BYTES);
+      byte[] key = new byte[offsets.getInt(first + (i + 1) * Integer.BYTES) - from];
+      for (int b = 0; b < key.length; b++) {
+        key[b] = data.get(data.position() + from + b);
+      }
+      if (add(key)) {
+        added++;
+      }
+    }
+    return added;
+  }
+
+  // SetBackend.containsBlock for a block in the layout of addAll
+  default int containsBlock(ByteBuffer offsets, ByteBuffer data, long[] bitmap) {
+    int first = offsets.position();
+    int numKeys = offsets.remaining() / Integer.BYTES - 1;
+    int matches = 0;
+    Arrays.fill(bitmap, 0, Bitmaps.words(numKeys), 0L);
+    for (int i = 0; i < numKeys; i++) {
+      int from = offsets.getInt(first + i * Integer.BYTES);
+      byte[] key = new byte[offsets.getInt(first + (i + 1) * Integer.BYTES) - from];
+      for (int b = 0; b < key.length; b++) {
+        key[b] = data.get(data.position() + from + b);
+      }
+      if (contains(key)) {
+        bitmap[i >>> 6] |= 1L << i;
+        matches++;
+      }
+    }
+    return matches;
+  }
+}
@@ -0,0 +1,12 @@
+package org.example;
+
+/*
+  Callback of SetBackend.forEachBytes, handed each key as length bytes at (base, offset)
+  in the Unsafe sense: a byte[] and an array offset, or null and a native address.
+  The view is only valid during the call, copy the bytes out to keep them.
+ */
+@FunctionalInterface
+public interface BytesConsumer {
+
+  void accept(Object base, long offset, int length);
+}
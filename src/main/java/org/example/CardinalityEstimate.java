@@ -0,0 +1,102 @@
+package org.example;
+
+/*
+  Size hint for a set built from a sample of its input keys
+  The first sampleSize keys are fed to a HyperLogLog. Assuming keys are drawn
+  uniformly from D distinct values, n draws see D(1 - e^(-n/D)) of them; D is
+  solved from the sample and the same curve extrapolated to the whole input.
+  Skewed inputs hide rare keys from the sample and come out low, so entries()
+  adds headroom, and a sample with (almost) no repeats assumes every key distinct.
+  SetBackendType.create(keyClass, estimate) turns it into Chronicle entries and
+  averageKeySize or a MapDB allocateStartSize.
+ */
+public final class CardinalityEstimate {
+  private static final double ENTRIES_HEADROOM = 1.1;
+  private static final double ALL_DISTINCT = 0.99;     // sample share of distinct keys taken as no repeats
+  private static final int MAPDB_ENTRY_OVERHEAD = 64; // bytes per entry beyond the key, measured with MemoryUsage
+
+  private final long _distinct;
+  private final double _averageKeyBytes;
+
+  public CardinalityEstimate(long distinct, double averageKeyBytes) {
+    _distinct = distinct;
+    _averageKeyBytes = averageKeyBytes;
+  }
+
+  public long distinct() {
+    return _distinct;
+  }
+
+  public long entries() {
+    return Math.max(1, (long) (_distinct * ENTRIES_HEADROOM));
+  }
+
+  public double averageKeyBytes() {
+    return _averageKeyBytes;
+  }
+
+  public long mapDBAllocation() {
+    return (long) (entries() * (_averageKeyBytes + MAPDB_ENTRY_OVERHEAD));
+  }
+
+  // distinct keys in total given sampleDistinct keys among the first sampleSize of total
+  static long extrapolate(long sampleDistinct, int sampleSize, long total) {
+    if (total <= sampleSize) {
+      return sampleDistinct;
+    }
+    if (sampleDistinct >= sampleSize * ALL_DISTINCT) {
+      return total;
+    }
+    // seen(D) = D(1 - e^(-n/D)) grows with D, bisect on a log scale for seen(D) = sampleDistinct
+    double low = Math.max(1, sampleDistinct);
+    double high = (double) total * total;
+    for (int i = 0; i < 100 && high / low > 1.0001; i++) {
+      double mid = Math.sqrt(low * high);
+      if (mid * -Math.expm1(-sampleSize / mid) < sampleDistinct) {
+        low = mid;
+      } else {
+        high = mid;
+      }
+    }
+    long estimate = (long) (low * -Math.expm1(-total / low));
+    return Math.min(total, Math.max(sampleDistinct, estimate));
+  }
+
+  public static CardinalityEstimate ofInts(int[] keys, int length, int sampleSize) {
+    HyperLogLog hll = new HyperLogLog();
+    int sample = Math.min(length, sampleSize);
+    for (int i = 0; i < sample; i++) {
+      hll.add(keys[i]);
+    }
+    return new CardinalityEstimate(extrapolate(hll.estimate(), sample, length), 4);
+  }
+
+  public static CardinalityEstimate ofStrings(String[] keys, int length, int sampleSize) {
+    HyperLogLog hll = new HyperLogLog();
+    int sample = Math.min(length, sampleSize);
+    long keyBytes = 0;
+    for (int i = 0; i < sample; i++) {
+      hll.add(keys[i]);
+      keyBytes += Utf8.encodedLength(keys[i]);
+    }
+    return new CardinalityEstimate(extrapolate(hll.estimate(), sample, length),
+        sample == 0 ? 0 : (double) keyBytes / sample);
+  }
+
+  public static CardinalityEstimate ofByteArrays(byte[][] keys, int length, int sampleSize) {
+    HyperLogLog hll = new HyperLogLog();
+    int sample = Math.min(length, sampleSize);
+    long keyBytes = 0;
+    for (int i = 0; i < sample; i++) {
+      hll.add(keys[i], 0, keys[i].length);
+      keyBytes += keys[i].length;
+    }
+    return new CardinalityEstimate(extrapolate(hll.estimate(), sample, length),
+        sample == 0 ? 0 : (double) keyBytes / sample);
+  }
+
+  @Override
+  public String toString() {
+    return "CardinalityEstimate{distinct=" + _distinct + ", averageKeyBytes=" + _averageKeyBytes + "}";
+  }
+}
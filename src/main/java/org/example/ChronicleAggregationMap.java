@@ -0,0 +1,101 @@
+package org.example;
+
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import net.openhft.chronicle.map.ExternalMapQueryContext;
+import net.openhft.chronicle.map.MapEntry;
+import net.openhft.chronicle.values.Values;
+
+/*
+  AggregationMap over a ChronicleMap of GroupAggregates values
+  aggregate() locks the key's entry through a query context and points a native
+  GroupAggregates reference at the value bytes of the entry, so the four longs are
+  updated where Chronicle stores them: no value is read into the heap or written
+  back. Only a new group copies its initial aggregates in. As for ChronicleSet,
+  entries is an upper bound and variable length keys need an average key.
+ */
+public class ChronicleAggregationMap<K> implements AggregationMap<K> {
+  private final ChronicleMap<K, GroupAggregates> _map;
+  private final GroupAggregates _inPlace = Values.newNativeReference(GroupAggregates.class);
+  private final GroupAggregates _initial = Values.newHeapInstance(GroupAggregates.class);
+  private final GroupAggregates _copy = Values.newHeapInstance(GroupAggregates.class);
+
+  public ChronicleAggregationMap(Class<K> keyClass, long entries, K averageKey) {
+    this(builder(keyClass, entries, averageKey));
+  }
+
+  public ChronicleAggregationMap(ChronicleMapBuilder<K, GroupAggregates> builder) {
+    _map = builder.create();
+  }
+
+  static <K> ChronicleMapBuilder<K, GroupAggregates> builder(Class<K> keyClass, long entries, K averageKey) {
+    ChronicleMapBuilder<K, GroupAggregates> builder = ChronicleMapBuilder.of(keyClass, GroupAggregates.class)
+        .entries(entries);
+    if (averageKey != null) {
+      builder.averageKey(averageKey);
+    }
+    return builder;
+  }
+
+  @Override
+  public void aggregate(K key, long value) {
+    try (ExternalMapQueryContext<K, GroupAggregates, ?> context = _map.queryContext(key)) {
+      context.updateLock().lock();
+      MapEntry<K, GroupAggregates> entry = context.entry();
+      if (entry != null) {
+        GroupAggregates aggregates = entry.value().getUsing(_inPlace);
+        aggregates.addCount(1);
+        aggregates.addSum(value);
+        if (value < aggregates.getMin()) {
+          aggregates.setMin(value);
+        }
+        if (value > aggregates.getMax()) {
+          aggregates.setMax(value);
+        }
+      } else {
+        _initial.setCount(1);
+        _initial.setSum(value);
+        _initial.setMin(value);
+        _initial.setMax(value);
+        context.insert(context.absentEntry(), context.wrapValueAsData(_initial));
+      }
+    }
+  }
+
+  @Override
+  public boolean get(K key, long[] aggregates) {
+    GroupAggregates group = _map.getUsing(key, _copy);
+    if (group == null) {
+      return false;
+    }
+    aggregates[COUNT] = group.getCount();
+    aggregates[SUM] = group.getSum();
+    aggregates[MIN] = group.getMin();
+    aggregates[MAX] = group.getMax();
+    return true;
+  }
+
+  // aggregates are read in place, under the segment read lock
+  @Override
+  public void forEach(GroupConsumer<K> consumer) {
+    _map.forEachEntry(entry -> {
+      GroupAggregates group = entry.value().getUsing(_inPlace);
+      consumer.accept(entry.key().getUsing(null), group.getCount(), group.getSum(), group.getMin(), group.getMax());
+    });
+  }
+
+  @Override
+  public long size() {
+    return _map.longSize();
+  }
+
+  @Override
+  public long memoryUsed() {
+    return _map.offHeapMemoryUsed();
+  }
+
+  @Override
+  public void close() {
+    _map.close();
+  }
+}
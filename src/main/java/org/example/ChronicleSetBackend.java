@@ -0,0 +1,201 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.PointerBytesStore;
+import net.openhft.chronicle.bytes.RandomDataInput;
+import net.openhft.chronicle.hash.Data;
+import net.openhft.chronicle.set.ChronicleSet;
+import net.openhft.chronicle.set.ChronicleSetBuilder;
+import net.openhft.chronicle.set.ExternalSetQueryContext;
+import net.openhft.chronicle.set.SetAbsentEntry;
+
+/*
+  SetBackend over ChronicleSet
+  Note ChronicleSet always needs upper bound on number of entries in the Set (see
+  GrowableChronicleSet when it is not known up front), and
+  variable length keys (String, byte[]) also need an average key to size entries
+  With StorageType.MMAP the set is persisted to a memory mapped file which is
+  deleted on close
+ */
+public class ChronicleSetBackend<K> implements SetBackend<K> {
+  // view of the native key bytes being probed, one per thread as sets may be shared
+  private static final ThreadLocal<PointerBytesStore> KEY_BYTES = ThreadLocal.withInitial(PointerBytesStore::new);
+
+  private final ChronicleSet<K> _set;
+  private final File _file; // null for in memory sets
+  private final boolean _stringKeys;
+
+  public ChronicleSetBackend(Class<K> keyClass, long entries, K averageKey) {
+    this(builder(keyClass, entries, averageKey));
+  }
+
+  public ChronicleSetBackend(ChronicleSetBuilder<K> builder) {
+    _set = builder.create();
+    _file = null;
+    _stringKeys = _set.keyClass() == String.class;
+  }
+
+  public ChronicleSetBackend(ChronicleSetBuilder<K> builder, StorageType storage) {
+    if (storage == StorageType.MMAP) {
+      _file = StorageType.newFile("chronicle-set");
+      try {
+        _set = builder.createPersistedTo(_file);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot create ChronicleSet in " + _file, e);
+      }
+    } else {
+      _set = builder.create();
+      _file = null;
+    }
+    _stringKeys = _set.keyClass() == String.class;
+  }
+
+  // String key bytes which Chronicle stores differently, see Utf8.hasFourByteSequence
+  private boolean decodeFirst(Object base, long offset, int length) {
+    return base != null || _stringKeys && Utf8.hasFourByteSequence(base, offset, length);
+  }
+
+  static <K> ChronicleSetBuilder<K> builder(Class<K> keyClass, long entries, K averageKey) {
+    ChronicleSetBuilder<K> builder = ChronicleSetBuilder.of(keyClass).entries(entries);
+    if (averageKey != null) {
+      builder.averageKey(averageKey);
+    }
+    return builder;
+  }
+
+  // sized from a sampled estimate rather than an averageKey sample
+  static <K> ChronicleSetBuilder<K> builder(Class<K> keyClass, CardinalityEstimate estimate) {
+    ChronicleSetBuilder<K> builder = ChronicleSetBuilder.of(keyClass).entries(estimate.entries());
+    if (keyClass == String.class || keyClass == byte[].class) {
+      builder.averageKeySize(Math.max(1, estimate.averageKeyBytes()));
+    }
+    return builder;
+  }
+
+  @Override
+  public boolean add(K key) {
+    return _set.add(key);
+  }
+
+  @Override
+  public boolean contains(K key) {
+    return _set.contains(key);
+  }
+
+  @Override
+  public Iterator<K> iterator() {
+    return _set.iterator();
+  }
+
+  /*
+    Key bytes are read in place from the segment, under its read lock. Strings with
+    supplementary characters are re-encoded, Chronicle stores them as surrogates.
+   */
+  @Override
+  public void forEachBytes(BytesConsumer consumer) {
+    _set.forEachEntry(entry -> {
+      Data<K> key = entry.key();
+      RandomDataInput bytes = key.bytes();
+      long address = bytes.addressForRead(key.offset());
+      int length = (int) key.size();
+      if (_stringKeys && Utf8.hasEncodedSurrogate(null, address, length)) {
+        byte[] utf8 = ((String) key.get()).getBytes(StandardCharsets.UTF_8);
+        consumer.accept(utf8, OffHeapVarKeySet.BYTE_ARRAY_BASE, utf8.length);
+      } else {
+        consumer.accept(null, address, length);
+      }
+    });
+  }
+
+  /*
+    Keys of a direct block go into the set as the bytes they are, through a query
+    context on the block memory, so no key object is created. Heap blocks and Strings
+    with supplementary characters are decoded.
+   */
+  @Override
+  public long importKeys(ByteBuffer block, Class<K> keyClass) {
+    if (block.hasArray()) {
+      return SetBackend.super.importKeys(block, keyClass);
+    }
+    long start = KeyBlock.address(block);
+    BytesStore<?, ?> store = BytesStore.wrap(start, block.remaining());
+    long[] added = new long[1];
+    KeyBlock.forEachKey(block, (base, offset, length) -> {
+      if (decodeFirst(base, offset, length)) {
+        if (SetBackend.super.addKeyBytes(base, offset, length, keyClass)) {
+          added[0]++;
+        }
+        return;
+      }
+      try (ExternalSetQueryContext<K, ?> context = _set.queryContext(store, offset - start, length)) {
+        context.updateLock().lock();
+        SetAbsentEntry<K> absent = context.absentEntry();
+        if (absent != null) {
+          absent.doInsert();
+          added[0]++;
+        }
+      }
+    });
+    return added[0];
+  }
+
+  /*
+    Native keys, e.g. the slots or arena of another off-heap set, are looked up as
+    the bytes they are through a query context on a view of their memory. Heap keys
+    and Strings with supplementary characters are decoded.
+   */
+  @Override
+  public boolean containsKeyBytes(Object base, long offset, int length, Class<K> keyClass) {
+    if (decodeFirst(base, offset, length)) {
+      return SetBackend.super.containsKeyBytes(base, offset, length, keyClass);
+    }
+    PointerBytesStore key = KEY_BYTES.get();
+    key.set(offset, length);
+    try (ExternalSetQueryContext<K, ?> context = _set.queryContext(key, 0, length)) {
+      context.readLock().lock();
+      return context.entry() != null;
+    }
+  }
+
+  @Override
+  public boolean addKeyBytes(Object base, long offset, int length, Class<K> keyClass) {
+    if (decodeFirst(base, offset, length)) {
+      return SetBackend.super.addKeyBytes(base, offset, length, keyClass);
+    }
+    PointerBytesStore key = KEY_BYTES.get();
+    key.set(offset, length);
+    try (ExternalSetQueryContext<K, ?> context = _set.queryContext(key, 0, length)) {
+      context.updateLock().lock();
+      SetAbsentEntry<K> absent = context.absentEntry();
+      if (absent == null) {
+        return false;
+      }
+      absent.doInsert();
+      return true;
+    }
+  }
+
+  @Override
+  public long size() {
+    return _set.size();
+  }
+
+  @Override
+  public long memoryUsed() {
+    return _set.offHeapMemoryUsed();
+  }
+
+  @Override
+  public void close() {
+    _set.close();
+    if (_file != null) {
+      _file.delete();
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package org.example;
+
+/*
+  Column types understood by RecordCodec, with the width of each column's slot in
+  the fixed width part of a row
+ */
+public enum ColumnType {
+  INT(Integer.BYTES),
+  LONG(Long.BYTES),
+  DOUBLE(Double.BYTES),
+  DICT_ID(Integer.BYTES), // dictionary encoded value, stored like INT
+  STRING(Integer.BYTES);  // end offset of the UTF-8 bytes in the variable length part
+
+  private final int _width;
+
+  ColumnType(int width) {
+    _width = width;
+  }
+
+  public int getWidth() {
+    return _width;
+  }
+}
@@ -144,6 +144,7 @@ public class ExampleUsages {
     //testMapDBInt(db);
     //testMapDBByteArray(db);
    // testMapDBObjectClass(db);
+    //testRecordMapDB(db);
     testMemoryOffHeapMapDB(db);
   }
 
@@ -204,11 +205,19 @@ public class ExampleUsages {
   }
 
   void testRecordChronicle(){
-    String[] str = {"abc","bcd"};
-    Record r = new Record(str);
-    Set<Record> set = ChronicleSetBuilder.of(Record.class).averageKey(r).entries(50).create();
+    RecordCodec codec = new RecordCodec(ColumnType.STRING, ColumnType.STRING);
+    Record r = new Record(new Object[]{"abc","bcd"});
+    Set<Record> set = ChronicleSetBuilder.of(Record.class).keyMarshaller(new RecordMarshaller(codec))
+        .averageKey(r).entries(50).create();
     set.add(r);
-    System.out.println(set.size());
+    System.out.println(set.size() + " " + set.contains(new Record(new Object[]{"abc","bcd"})));
+  }
+
+  void testRecordMapDB(DB db){
+    RecordCodec codec = new RecordCodec(ColumnType.STRING, ColumnType.LONG, ColumnType.DOUBLE);
+    Set<Record> set = db.hashSet("record").serializer(new RecordSerializer(codec)).createOrOpen();
+    set.add(new Record(new Object[]{"abc",1L,2.5}));
+    System.out.println(set.size() + " " + set.contains(new Record(new Object[]{"abc",1L,2.5})));
   }
   void testChronicle(){
     //testChronicleAddAll();
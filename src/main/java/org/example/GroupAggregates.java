@@ -0,0 +1,30 @@
+package org.example;
+
+/*
+  Chronicle Values interface of the aggregates of one group, a fixed 32 byte value
+  in ChronicleMap. A native reference (Values.newNativeReference) pointed at a map
+  entry reads and writes the fields in the entry itself, so ChronicleAggregationMap
+  updates a group without deserializing or re-putting its value. addXxx adds in
+  place and returns the new value.
+ */
+public interface GroupAggregates {
+  long getCount();
+
+  void setCount(long count);
+
+  long addCount(long delta);
+
+  long getSum();
+
+  void setSum(long sum);
+
+  long addSum(long delta);
+
+  long getMin();
+
+  void setMin(long min);
+
+  long getMax();
+
+  void setMax(long max);
+}
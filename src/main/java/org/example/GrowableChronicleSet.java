@@ -0,0 +1,179 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.LongFunction;
+
+/*
+  ChronicleSet without a fixed upper bound on entries
+  Starts with one ChronicleSet sized for initialEntries. When it fills up, a new
+  generation GROWTH_FACTOR times the capacity so far is chained on top, so a 100x
+  under-estimate costs about log4(100) generations rather than a failed insert.
+  Past MAX_GENERATIONS the chain is rehashed into a single generation, which keeps
+  contains() to a few probes: newest (largest) generation first.
+  compact() rehashes the final state into one set sized for what it actually holds.
+ */
+public class GrowableChronicleSet<K> implements SetBackend<K> {
+  static final int GROWTH_FACTOR = 4;
+  static final int MAX_GENERATIONS = 3;
+  private static final double COMPACT_HEADROOM = 1.1; // Chronicle segments fill unevenly
+
+  private final LongFunction<ChronicleSetBackend<K>> _factory;
+  private final List<ChronicleSetBackend<K>> _generations = new ArrayList<>(); // oldest first
+  private long _capacity;    // sum of the entries of all generations
+  private long _current;     // entries of the newest generation
+  private long _newestSize;  // keys in the newest generation, ChronicleSet.size() walks every segment
+  private long _size;
+
+  public GrowableChronicleSet(Class<K> keyClass, long initialEntries, K averageKey, StorageType storage) {
+    this(entries -> new ChronicleSetBackend<>(ChronicleSetBackend.builder(keyClass, entries, averageKey), storage),
+        initialEntries);
+  }
+
+  // factory creates a ChronicleSet for the given entries, e.g. with a custom key marshaller
+  public GrowableChronicleSet(LongFunction<ChronicleSetBackend<K>> factory, long initialEntries) {
+    _factory = factory;
+    addGeneration(Math.max(1, initialEntries));
+  }
+
+  private ChronicleSetBackend<K> newest() {
+    return _generations.get(_generations.size() - 1);
+  }
+
+  private void addGeneration(long entries) {
+    _generations.add(_factory.apply(entries));
+    _capacity += entries;
+    _current = entries;
+    _newestSize = 0;
+  }
+
+  private void grow() {
+    long entries = _capacity * GROWTH_FACTOR;
+    if (_generations.size() < MAX_GENERATIONS) {
+      addGeneration(entries);
+    } else {
+      rehash(entries);
+    }
+  }
+
+  // moves every key into one new generation of the given entries
+  private void rehash(long entries) {
+    ChronicleSetBackend<K> merged = _factory.apply(entries);
+    for (ChronicleSetBackend<K> generation : _generations) {
+      Iterator<K> it = generation.iterator();
+      while (it.hasNext()) {
+        merged.add(it.next());
+      }
+      generation.close();
+    }
+    _generations.clear();
+    _generations.add(merged);
+    _capacity = entries;
+    _current = entries;
+    _newestSize = _size;
+  }
+
+  public void compact() {
+    if (_generations.size() > 1 || _current > _size * COMPACT_HEADROOM * GROWTH_FACTOR) {
+      rehash(Math.max(1, (long) (_size * COMPACT_HEADROOM)));
+    }
+  }
+
+  public int generations() {
+    return _generations.size();
+  }
+
+  @Override
+  public boolean add(K key) {
+    for (int i = _generations.size() - 2; i >= 0; i--) {
+      if (_generations.get(i).contains(key)) {
+        return false;
+      }
+    }
+    if (_newestSize >= _current) {
+      if (newest().contains(key)) {
+        return false;
+      }
+      grow();
+    }
+    boolean added;
+    try {
+      added = newest().add(key);
+    } catch (IllegalStateException e) {
+      // a segment filled up before the set reached entries
+      grow();
+      added = newest().add(key);
+    }
+    if (added) {
+      _newestSize++;
+      _size++;
+    }
+    return added;
+  }
+
+  @Override
+  public boolean contains(K key) {
+    for (int i = _generations.size() - 1; i >= 0; i--) {
+      if (_generations.get(i).contains(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Iterator<K> iterator() {
+    Iterator<ChronicleSetBackend<K>> generations = _generations.iterator();
+    return new Iterator<K>() {
+      private Iterator<K> _it = Collections.emptyIterator();
+
+      @Override
+      public boolean hasNext() {
+        while (!_it.hasNext() && generations.hasNext()) {
+          _it = generations.next().iterator();
+        }
+        return _it.hasNext();
+      }
+
+      @Override
+      public K next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return _it.next();
+      }
+    };
+  }
+
+  @Override
+  public void forEachBytes(BytesConsumer consumer) {
+    for (ChronicleSetBackend<K> generation : _generations) {
+      generation.forEachBytes(consumer);
+    }
+  }
+
+  @Override
+  public long size() {
+    return _size;
+  }
+
+  @Override
+  public long memoryUsed() {
+    long bytes = 0;
+    for (ChronicleSetBackend<K> generation : _generations) {
+      bytes += generation.memoryUsed();
+    }
+    return bytes;
+  }
+
+  @Override
+  public void close() {
+    for (ChronicleSetBackend<K> generation : _generations) {
+      generation.close();
+    }
+    _generations.clear();
+  }
+}
@@ -0,0 +1,71 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+  JoinTable baseline on the java heap: HashMap from Record to a growable long[] of
+  its row ids, the usual build side of an in-memory hash join. Every key and every
+  row id list is a heap object the GC has to trace.
+ */
+public class HashMapJoinTable implements JoinTable {
+  private final Map<Record, RowIds> _map;
+  private long _rows;
+
+  private static final class RowIds {
+    long[] _ids = new long[1];
+    int _size;
+
+    void add(long rowId) {
+      if (_size == _ids.length) {
+        _ids = Arrays.copyOf(_ids, _size << 1);
+      }
+      _ids[_size++] = rowId;
+    }
+  }
+
+  public HashMapJoinTable(long expectedKeys) {
+    _map = new HashMap<>((int) Math.min(1 << 30, expectedKeys * 4 / 3 + 1));
+  }
+
+  @Override
+  public void add(Record key, long rowId) {
+    _map.computeIfAbsent(key, k -> new RowIds()).add(rowId);
+    _rows++;
+  }
+
+  @Override
+  public long probe(Record key, long[] rowIds, MatchConsumer consumer) {
+    RowIds matches = _map.get(key);
+    if (matches == null) {
+      return 0;
+    }
+    for (int from = 0; from < matches._size; from += rowIds.length) {
+      int count = Math.min(rowIds.length, matches._size - from);
+      System.arraycopy(matches._ids, from, rowIds, 0, count);
+      consumer.accept(rowIds, count);
+    }
+    return matches._size;
+  }
+
+  @Override
+  public long size() {
+    return _map.size();
+  }
+
+  @Override
+  public long rows() {
+    return _rows;
+  }
+
+  @Override
+  public long memoryUsed() {
+    return 0; // everything lives on heap
+  }
+
+  @Override
+  public void close() {
+    _map.clear();
+  }
+}
@@ -0,0 +1,50 @@
+package org.example;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/*
+  Baseline SetBackend over HashSet in Java Collections, or any other heap Set
+ */
+public class HashSetBackend<K> implements SetBackend<K> {
+  private final Set<K> _set;
+
+  public HashSetBackend() {
+    this(new HashSet<>());
+  }
+
+  public HashSetBackend(Set<K> set) {
+    _set = set;
+  }
+
+  @Override
+  public boolean add(K key) {
+    return _set.add(key);
+  }
+
+  @Override
+  public boolean contains(K key) {
+    return _set.contains(key);
+  }
+
+  @Override
+  public Iterator<K> iterator() {
+    return _set.iterator();
+  }
+
+  @Override
+  public long size() {
+    return _set.size();
+  }
+
+  @Override
+  public long memoryUsed() {
+    return 0; // everything lives on heap
+  }
+
+  @Override
+  public void close() {
+    _set.clear();
+  }
+}
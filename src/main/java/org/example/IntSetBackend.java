@@ -0,0 +1,64 @@
+package org.example;
+
+import java.util.function.IntConsumer;
+
+/*
+  SetBackend specialised for int keys so int workloads can run without boxing on
+  backends that support it. Boxed backends are adapted through BoxedIntSetBackend.
+ */
+public interface IntSetBackend extends SetBackend<Integer> {
+
+  boolean add(int key);
+
+  boolean contains(int key);
+
+  void forEach(IntConsumer consumer);
+
+  // SetBackend.containsBlock for int keys, without boxing
+  default int containsBlock(int[] keys, int length, long[] bitmap) {
+    int matches = 0;
+    for (int w = 0; w < Bitmaps.words(length); w++) {
+      long word = 0;
+      for (int i = w << 6, end = Math.min(length, i + 64); i < end; i++) {
+        if (contains(keys[i])) {
+          word |= 1L << i;
+          matches++;
+        }
+      }
+      bitmap[w] = word;
+    }
+    return matches;
+  }
+
+  default int containsBlock(int[] keys, int length, int[] matches) {
+    int count = 0;
+    for (int i = 0; i < length; i++) {
+      if (contains(keys[i])) {
+        matches[count++] = i;
+      }
+    }
+    return count;
+  }
+
+  // int keys are 4 bytes in native byte order, read without decoding or boxing
+  @Override
+  default boolean containsKeyBytes(Object base, long offset, int length, Class<Integer> keyClass) {
+    return contains(OffHeapVarKeySet.MEMORY.readInt(base, offset));
+  }
+
+  @Override
+  default boolean addKeyBytes(Object base, long offset, int length, Class<Integer> keyClass) {
+    return add(OffHeapVarKeySet.MEMORY.readInt(base, offset));
+  }
+
+  // adds values[0, length), e.g. a block of dict ids, and returns how many were new
+  default int addAll(int[] values, int length) {
+    int added = 0;
+    for (int i = 0; i < length; i++) {
+      if (add(values[i])) {
+        added++;
+      }
+    }
+    return added;
+  }
+}
@@ -0,0 +1,39 @@
+package org.example;
+
+/*
+  Build side of a hash join: Record key -> the row ids (or row offsets) of every
+  build row with that key, in the order they were added. add() appends one build row,
+  probe() streams the matches of one probe key through a buffer owned by the caller,
+  so a key with millions of matches needs no result array of that size. Instances
+  are created through JoinTableType, are not thread safe, and must be closed to
+  release their off-heap memory.
+ */
+public interface JoinTable extends AutoCloseable {
+
+  void add(Record key, long rowId);
+
+  /*
+    Copies the row ids of key into rowIds and hands the buffer to consumer each time
+    it is full, then once with the rest. Returns the number of matches, 0 when key has
+    none, in which case consumer is not called.
+   */
+  long probe(Record key, long[] rowIds, MatchConsumer consumer);
+
+  @FunctionalInterface
+  interface MatchConsumer {
+    // rowIds[0, count) are valid until the call returns, the buffer is reused
+    void accept(long[] rowIds, int count);
+  }
+
+  // distinct keys
+  long size();
+
+  // row ids added
+  long rows();
+
+  // bytes held by the table outside the java heap
+  long memoryUsed();
+
+  @Override
+  void close();
+}
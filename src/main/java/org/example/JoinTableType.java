@@ -0,0 +1,25 @@
+package org.example;
+
+/*
+  Factory for every JoinTable we benchmark, used as a JMH @Param as
+  AggregationMapType is for GROUP BY.
+  There is no Chronicle or MapDB table: their values are serialized whole, so
+  appending a row id to a key's list would rewrite the list on every add.
+ */
+public enum JoinTableType {
+  HASHMAP {
+    @Override
+    public JoinTable create(RecordCodec codec, long expectedKeys, long expectedRows) {
+      return new HashMapJoinTable(expectedKeys);
+    }
+  },
+  OFFHEAP {
+    @Override
+    public JoinTable create(RecordCodec codec, long expectedKeys, long expectedRows) {
+      return new OffHeapJoinTable(codec, expectedKeys, expectedRows);
+    }
+  };
+
+  // Record keys in the RecordCodec row layout, both sizes are hints
+  public abstract JoinTable create(RecordCodec codec, long expectedKeys, long expectedRows);
+}
@@ -0,0 +1,247 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.OS;
+
+/*
+  Contiguous binary form of the keys of a set, written by SetBackend.exportKeys and
+  loaded by importKeys, e.g. to ship a DISTINCT result between nodes as one buffer
+  Keys are the byte strings of SetBackend.forEachBytes. Layout, in native byte order:
+    int MAGIC, int width, int count, int dataBytes     (HEADER_BYTES)
+    count + 1 int offsets into data, 0 to dataBytes    (only when width is VARIABLE)
+    data, the key bytes back to back
+  Fixed width keys (all of width bytes, e.g. ints) need no offsets, key i is at
+  i * width. Blocks are read from their position() and may be heap, direct or mapped
+  buffers, e.g. a region of a file.
+ */
+public final class KeyBlock {
+  public static final int VARIABLE = 0;
+  static final int MAGIC = 0x53455442; // "SETB"
+  static final int HEADER_BYTES = 4 * Integer.BYTES;
+  private static final Memory MEMORY = OS.memory();
+
+  private KeyBlock() {
+  }
+
+  // direct buffer with the header written and room for the offsets and dataBytes of data
+  static ByteBuffer allocate(int width, long count, long dataBytes) {
+    long bytes = HEADER_BYTES + (width == VARIABLE ? (count + 1) * Integer.BYTES : 0) + dataBytes;
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Set too large for one KeyBlock: " + bytes + " bytes");
+    }
+    ByteBuffer block = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    block.putInt(0, MAGIC);
+    block.putInt(4, width);
+    block.putInt(8, (int) count);
+    block.putInt(12, (int) dataBytes);
+    return block;
+  }
+
+  private static int header(ByteBuffer block, int field) {
+    if (MEMORY.readInt(base(block), address(block)) != MAGIC) {
+      throw new IllegalArgumentException("Not a KeyBlock");
+    }
+    return MEMORY.readInt(base(block), address(block) + field);
+  }
+
+  public static int width(ByteBuffer block) {
+    return header(block, 4);
+  }
+
+  public static int count(ByteBuffer block) {
+    return header(block, 8);
+  }
+
+  public static int dataBytes(ByteBuffer block) {
+    return header(block, 12);
+  }
+
+  // (base, offset) of the block position, as for Unsafe
+  static Object base(ByteBuffer block) {
+    return block.hasArray() ? block.array() : null;
+  }
+
+  static long address(ByteBuffer block) {
+    return (block.hasArray() ? OffHeapVarKeySet.BYTE_ARRAY_BASE + block.arrayOffset() : Jvm.address(block))
+        + block.position();
+  }
+
+  // relative to address(block)
+  static long offsetsOffset() {
+    return HEADER_BYTES;
+  }
+
+  static long dataOffset(ByteBuffer block) {
+    int width = width(block);
+    return HEADER_BYTES + (width == VARIABLE ? (count(block) + 1L) * Integer.BYTES : 0);
+  }
+
+  // hands every key of the block to consumer, in place
+  public static void forEachKey(ByteBuffer block, BytesConsumer consumer) {
+    Object base = base(block);
+    long start = address(block);
+    int width = width(block);
+    int count = count(block);
+    long data = start + dataOffset(block);
+    for (int i = 0; i < count; i++) {
+      if (width == VARIABLE) {
+        int from = MEMORY.readInt(base, start + HEADER_BYTES + (long) i * Integer.BYTES);
+        int to = MEMORY.readInt(base, start + HEADER_BYTES + (i + 1L) * Integer.BYTES);
+        consumer.accept(base, data + from, to - from);
+      } else {
+        consumer.accept(base, data + (long) i * width, width);
+      }
+    }
+  }
+
+  /*
+    SetBackend.exportKeys for any set: one pass of forEachBytes collects keys and
+    offsets in growable native buffers, which are then copied into the block. A
+    second pass to size the block first would cost a whole scan of the set.
+   */
+  static ByteBuffer export(SetBackend<?> set) {
+    Collector collector = new Collector();
+    try {
+      set.forEachBytes(collector);
+      return collector.toBlock();
+    } finally {
+      collector.free();
+    }
+  }
+
+  /*
+    SetBackend.importKeys for sets which hold key objects: every key is decoded as
+    keyClass (Integer, Long, String or byte[]) and added
+   */
+  static <K> long addAll(SetBackend<K> set, Class<K> keyClass, ByteBuffer block) {
+    long[] added = new long[1];
+    forEachKey(block, (base, offset, length) -> {
+      if (set.add(keyClass.cast(decode(keyClass, base, offset, length)))) {
+        added[0]++;
+      }
+    });
+    return added[0];
+  }
+
+  static Object decode(Class<?> keyClass, Object base, long offset, int length) {
+    if (keyClass == Integer.class && length == Integer.BYTES) {
+      return MEMORY.readInt(base, offset);
+    }
+    if (keyClass == Long.class && length == Long.BYTES) {
+      return MEMORY.readLong(base, offset);
+    }
+    if (keyClass == String.class || keyClass == byte[].class) {
+      byte[] bytes = new byte[length];
+      if (base == null) {
+        MEMORY.copyMemory(offset, bytes, OffHeapVarKeySet.BYTE_ARRAY_BASE, length);
+      } else {
+        MEMORY.copyMemory(base, offset, bytes, OffHeapVarKeySet.BYTE_ARRAY_BASE, length);
+      }
+      return keyClass == String.class ? new String(bytes, StandardCharsets.UTF_8) : bytes;
+    }
+    throw new UnsupportedOperationException("Cannot decode " + length + " byte keys as " + keyClass.getName());
+  }
+
+  /*
+    Keys back to back in native memory and their offsets, plus the common key length,
+    VARIABLE once two lengths differ. Also the per partition buffers of SetMerge.
+   */
+  static final class Collector implements BytesConsumer {
+    private static final long INITIAL_BYTES = 1 << 16;
+    private static final long MIN_BYTES = 64;
+
+    private long _data;
+    private long _dataCapacity;
+    private long _offsets;
+    private long _offsetsCapacity;
+    private long _count;
+    private long _written;
+    private int _width = -1;
+
+    Collector() {
+      this(INITIAL_BYTES, INITIAL_BYTES);
+    }
+
+    // initial buffer sizes, both grow by doubling
+    Collector(long dataBytes, long offsetBytes) {
+      _dataCapacity = Math.max(MIN_BYTES, dataBytes);
+      _offsetsCapacity = Math.max(MIN_BYTES, offsetBytes);
+      _data = MEMORY.allocate(_dataCapacity);
+      _offsets = MEMORY.allocate(_offsetsCapacity);
+    }
+
+    // moves the used bytes of a buffer into a new one of newCapacity
+    private static long grow(long address, long capacity, long used, long newCapacity) {
+      long newAddress = MEMORY.allocate(newCapacity);
+      MEMORY.copyMemory(address, newAddress, used);
+      MEMORY.freeMemory(address, capacity);
+      return newAddress;
+    }
+
+    @Override
+    public void accept(Object base, long offset, int length) {
+      if ((_count + 2) * Integer.BYTES > _offsetsCapacity) {
+        _offsets = grow(_offsets, _offsetsCapacity, _count * Integer.BYTES, _offsetsCapacity << 1);
+        _offsetsCapacity <<= 1;
+      }
+      if (_written + length > _dataCapacity) {
+        long capacity = _dataCapacity;
+        while (capacity < _written + length) {
+          capacity <<= 1;
+        }
+        _data = grow(_data, _dataCapacity, _written, capacity);
+        _dataCapacity = capacity;
+      }
+      MEMORY.writeInt(_offsets + _count * Integer.BYTES, (int) _written);
+      if (base == null) {
+        MEMORY.copyMemory(offset, _data + _written, length);
+      } else {
+        MEMORY.copyMemory(base, offset, _data + _written, length);
+      }
+      _written += length;
+      _count++;
+      _width = _width == -1 || _width == length ? length : VARIABLE;
+    }
+
+    long count() {
+      return _count;
+    }
+
+    // the collected keys in order, as native (null, address) views
+    void forEach(BytesConsumer consumer) {
+      for (long i = 0; i < _count; i++) {
+        long start = MEMORY.readInt(_offsets + i * Integer.BYTES);
+        long end = i + 1 < _count ? MEMORY.readInt(_offsets + (i + 1) * Integer.BYTES) : _written;
+        consumer.accept(null, _data + start, (int) (end - start));
+      }
+    }
+
+    ByteBuffer toBlock() {
+      int width = _width > 0 ? _width : VARIABLE;
+      ByteBuffer block = allocate(width, _count, _written);
+      long address = Jvm.address(block);
+      if (width == VARIABLE) {
+        MEMORY.writeInt(_offsets + _count * Integer.BYTES, (int) _written);
+        MEMORY.copyMemory(_offsets, address + offsetsOffset(), (_count + 1) * Integer.BYTES);
+      }
+      MEMORY.copyMemory(_data, address + dataOffset(block), _written);
+      return block;
+    }
+
+    // idempotent, the collector is empty afterwards
+    void free() {
+      if (_data != 0) {
+        MEMORY.freeMemory(_data, _dataCapacity);
+        MEMORY.freeMemory(_offsets, _offsetsCapacity);
+        _data = 0;
+        _offsets = 0;
+        _count = 0;
+        _written = 0;
+      }
+    }
+  }
+}
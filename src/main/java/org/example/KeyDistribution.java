@@ -0,0 +1,13 @@
+package org.example;
+
+/*
+  Access patterns RandomUtils can draw keys with
+  UNIFORM  every key equally likely
+  ZIPFIAN  Zipf with theta 0.99 (as in YCSB), key 0 is the most popular
+  HOTSPOT  the first 20% of the keys get 80% of the accesses
+ */
+public enum KeyDistribution {
+  UNIFORM,
+  ZIPFIAN,
+  HOTSPOT
+}
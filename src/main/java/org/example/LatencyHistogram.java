@@ -0,0 +1,93 @@
+package org.example;
+
+import java.util.Arrays;
+
+/*
+  Log-linear histogram of latencies in nanoseconds, the HdrHistogram layout at 2
+  significant digits, for per operation recording without allocation
+  Values below SUB_BUCKETS are counted exactly; above, every power of two is split
+  into SUB_BUCKETS/2 linear buckets, so a recorded value is off by less than 1.6%.
+  percentile() returns the highest value of the bucket it falls in, as HdrHistogram
+  does, max() is exact. Not thread safe, use one histogram per thread and add().
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKETS + SUB_BUCKETS;
+
+  private final long[] _counts = new long[BUCKETS];
+  private long _count;
+  private long _max;
+  private long _sum;
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  // lowest and highest value counted in the bucket at index
+  static long lowestAt(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / HALF_SUB_BUCKETS - 1;
+    return (long) (index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS) << shift;
+  }
+
+  static long highestAt(int index) {
+    return index < SUB_BUCKETS ? index : lowestAt(index) + (1L << (index / HALF_SUB_BUCKETS - 1)) - 1;
+  }
+
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    _counts[indexOf(value)]++;
+    _count++;
+    _sum += value;
+    _max = Math.max(_max, value);
+  }
+
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      _counts[i] += other._counts[i];
+    }
+    _count += other._count;
+    _sum += other._sum;
+    _max = Math.max(_max, other._max);
+  }
+
+  public void reset() {
+    Arrays.fill(_counts, 0);
+    _count = 0;
+    _sum = 0;
+    _max = 0;
+  }
+
+  public long count() {
+    return _count;
+  }
+
+  public long max() {
+    return _max;
+  }
+
+  public double mean() {
+    return _count == 0 ? 0 : (double) _sum / _count;
+  }
+
+  // e.g. percentile(99.9), 0 for an empty histogram
+  public long percentile(double percentile) {
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * _count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += _counts[i];
+      if (seen >= rank) {
+        return Math.min(highestAt(i), _max);
+      }
+    }
+    return _max;
+  }
+}
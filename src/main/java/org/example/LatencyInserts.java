@@ -0,0 +1,51 @@
+package org.example;
+
+import java.util.function.LongFunction;
+
+/*
+  Set the insert workloads of BenchmarkLatency and LatencyProfile add to
+  It starts empty with an entries hint of INITIAL_ENTRIES, so backends which grow
+  resize while they are measured, and is replaced by a new empty set once it holds
+  keysPerSet keys. The replacement runs inside the add that finds the set full, so
+  one sample per set includes closing it and creating the next.
+  CHRONICLE cannot grow past its entries hint and is created for keysPerSet keys,
+  GROWABLE_CHRONICLE grows by adding generations.
+ */
+final class LatencyInserts<S extends SetBackend<?>> implements AutoCloseable {
+  static final int INITIAL_ENTRIES = 1024;
+
+  private final LongFunction<S> _create;
+  private final long _entries;
+  private final int _keysPerSet;
+  private S _set;
+  private int _added;
+
+  // create returns a new empty set for an entries hint
+  LatencyInserts(SetBackendType backend, int keysPerSet, LongFunction<S> create) {
+    _create = create;
+    _entries = backend == SetBackendType.CHRONICLE ? keysPerSet : Math.min(INITIAL_ENTRIES, keysPerSet);
+    _keysPerSet = keysPerSet;
+  }
+
+  // index in [0, keysPerSet) of the key to add next to set(), replacing a full set first
+  int next() {
+    if (_set == null || _added == _keysPerSet) {
+      close();
+      _set = _create.apply(_entries);
+      _added = 0;
+    }
+    return _added++;
+  }
+
+  S set() {
+    return _set;
+  }
+
+  @Override
+  public void close() {
+    if (_set != null) {
+      _set.close();
+      _set = null;
+    }
+  }
+}
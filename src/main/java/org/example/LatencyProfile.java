@@ -0,0 +1,270 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+import org.apache.commons.lang3.StringUtils;
+
+/*
+  p50/p99/p99.9/max latency of every single contains and add, per backend and key type
+  Unlike BenchmarkLatency, which samples, every operation is timed with System.nanoTime
+  and recorded into a LatencyHistogram.
+  rate=0 runs a closed loop, each operation starting when the previous one returns,
+  and reports service time only. A closed loop hides stalls: while one add resizes for
+  10ms no other operation is issued, so a single slow sample is all the stall costs.
+  rate=N runs a fixed rate load of N ops/s instead: operation i is due at
+  start + i / N and the loop spins until then. Two latencies are reported:
+    service    end - actual start, the time spent inside the set
+    response   end - due time, what a client issuing N ops/s would see; operations
+               held back by a stall count the time they waited (coordinated omission
+               corrected, as wrk2 or HdrHistogram's expected interval correction)
+  A rate above what a backend sustains makes response latency grow with the run length.
+  contains probes a set of entries keys with a 50% hit ratio; insert adds ops keys
+  through LatencyInserts, to a set which starts empty and small and is replaced once
+  it holds entries distinct keys, as BenchmarkLatency does.
+
+  Usage: LatencyProfile [csv|json] [backends=CHRONICLE,MAPDB] [keys=INT,STRING] [workloads=CONTAINS,INSERT]
+                        [rates=0,100000] [ops=1000000] [entries=1000000]
+ */
+public class LatencyProfile {
+  private static final int AVG_KEY_LENGTH = 50;
+  private static final int WARMUP_OPS = 200000; // JIT compiles the loop and the backend before the measured runs
+  private static final double[] PERCENTILES = {50, 99, 99.9};
+
+  enum KeyType {
+    INT,
+    STRING
+  }
+
+  enum Workload {
+    CONTAINS,
+    INSERT
+  }
+
+  static class Row {
+    SetBackendType _backend;
+    KeyType _keyType;
+    Workload _workload;
+    long _rate;
+    String _latency;
+    LatencyHistogram _histogram;
+  }
+
+  private static final String[] COLUMNS = {"backend", "keyType", "workload", "rate", "latency", "count", "mean",
+      "p50", "p99", "p99.9", "max"};
+
+  private final RandomUtils _random = new RandomUtils();
+
+  public List<Row> measure(SetBackendType backend, KeyType keyType, Workload workload, long rate, int ops, int entries) {
+    LatencyHistogram service = new LatencyHistogram();
+    LatencyHistogram response = new LatencyHistogram();
+    String averageKey = StringUtils.repeat("a", AVG_KEY_LENGTH);
+    AutoCloseable set;
+    if (workload == Workload.INSERT)
+      set = keyType == KeyType.INT ? new LatencyInserts<>(backend, entries, backend::createIntSet)
+          : new LatencyInserts<>(backend, entries, n -> backend.create(String.class, n, averageKey));
+    else
+      set = keyType == KeyType.INT ? backend.createIntSet(entries) : backend.create(String.class, entries, averageKey);
+    try {
+      IntPredicate op = prepare(set, keyType, workload, ops, entries);
+      if (rate == 0)
+        runClosedLoop(op, ops, service);
+      else
+        runFixedRate(op, ops, 1_000_000_000.0 / rate, service, response);
+    } finally {
+      close(set);
+    }
+    List<Row> rows = new ArrayList<>();
+    rows.add(row(backend, keyType, workload, rate, "service", service));
+    if (rate != 0)
+      rows.add(row(backend, keyType, workload, rate, "response", response));
+    return rows;
+  }
+
+  private static void close(AutoCloseable set) {
+    try {
+      set.close();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /*
+    Loads set (LatencyInserts for INSERT) for the workload and returns operation i,
+    keys are generated up front so only the set call is timed. Insert keys are
+    distinct within a set, which holds at most entries of them.
+   */
+  @SuppressWarnings("unchecked")
+  private IntPredicate prepare(AutoCloseable set, KeyType keyType, Workload workload, int ops, int entries) {
+    if (keyType == KeyType.INT) {
+      if (workload == Workload.INSERT) {
+        LatencyInserts<IntSetBackend> inserts = (LatencyInserts<IntSetBackend>) set;
+        int[] keys = new int[Math.min(ops, entries)];
+        for (int i = 0; i < keys.length; i++)
+          keys[i] = OffHeapIntSet.hash(i); // bijection, distinct and scattered
+        return i -> {
+          int key = inserts.next();
+          return inserts.set().add(keys[key]);
+        };
+      }
+      IntSetBackend ints = (IntSetBackend) set;
+      for (int value = 0; value < entries; ++value)
+        ints.add(value);
+      int[] probes = _random.generateIntProbes(ops, entries, 2 * entries, 0.5, KeyDistribution.UNIFORM);
+      return i -> ints.contains(probes[i]);
+    }
+    if (workload == Workload.INSERT) {
+      LatencyInserts<SetBackend<String>> inserts = (LatencyInserts<SetBackend<String>>) set;
+      String[] keys = new String[Math.min(ops, entries)];
+      for (int i = 0; i < keys.length; i++)
+        keys[i] = Integer.toHexString(i) + '-' + _random.generateRandomString(1, 2 * AVG_KEY_LENGTH);
+      return i -> {
+        int key = inserts.next();
+        return inserts.set().add(keys[key]);
+      };
+    }
+    SetBackend<String> strings = (SetBackend<String>) set;
+    String[] present = _random.generateStrings(entries, 1, 2 * AVG_KEY_LENGTH);
+    for (String key : present)
+      strings.add(key);
+    // longer than any present key, so always a miss
+    String[] absent = _random.generateStrings(Math.min(ops, entries), 2 * AVG_KEY_LENGTH + 1, 3 * AVG_KEY_LENGTH);
+    String[] probes = _random.generateProbes(present, absent, new String[ops], 0.5, KeyDistribution.UNIFORM);
+    return i -> strings.contains(probes[i]);
+  }
+
+  private static void runClosedLoop(IntPredicate op, int ops, LatencyHistogram service) {
+    for (int i = 0; i < ops; i++) {
+      long start = System.nanoTime();
+      op.test(i);
+      service.record(System.nanoTime() - start);
+    }
+  }
+
+  private static void runFixedRate(IntPredicate op, int ops, double intervalNanos, LatencyHistogram service,
+      LatencyHistogram response) {
+    long origin = System.nanoTime();
+    for (int i = 0; i < ops; i++) {
+      long due = origin + (long) (i * intervalNanos);
+      long start = System.nanoTime();
+      while (start < due)
+        start = System.nanoTime();
+      op.test(i);
+      long end = System.nanoTime();
+      service.record(end - start);
+      response.record(end - due);
+    }
+  }
+
+  private static Row row(SetBackendType backend, KeyType keyType, Workload workload, long rate, String latency,
+      LatencyHistogram histogram) {
+    Row row = new Row();
+    row._backend = backend;
+    row._keyType = keyType;
+    row._workload = workload;
+    row._rate = rate;
+    row._latency = latency;
+    row._histogram = histogram;
+    return row;
+  }
+
+  private static String[] values(Row row) {
+    LatencyHistogram histogram = row._histogram;
+    String[] values = new String[COLUMNS.length];
+    values[0] = row._backend.name();
+    values[1] = row._keyType.name();
+    values[2] = row._workload.name();
+    values[3] = Long.toString(row._rate);
+    values[4] = row._latency;
+    values[5] = Long.toString(histogram.count());
+    values[6] = String.format(Locale.ROOT, "%.1f", histogram.mean());
+    for (int i = 0; i < PERCENTILES.length; i++)
+      values[7 + i] = Long.toString(histogram.percentile(PERCENTILES[i]));
+    values[10] = Long.toString(histogram.max());
+    return values;
+  }
+
+  static String toCsv(List<Row> rows) {
+    StringBuilder sb = new StringBuilder(String.join(",", COLUMNS)).append('\n');
+    for (Row row : rows)
+      sb.append(String.join(",", values(row))).append('\n');
+    return sb.toString();
+  }
+
+  static String toJson(List<Row> rows) {
+    StringBuilder sb = new StringBuilder("[\n");
+    for (int r = 0; r < rows.size(); r++) {
+      String[] values = values(rows.get(r));
+      sb.append("  {");
+      for (int i = 0; i < COLUMNS.length; i++) {
+        // backend, keyType and workload are names and latency a word, the rest numbers
+        String value = i < 3 || i == 4 ? '"' + values[i] + '"' : values[i];
+        sb.append(i == 0 ? "" : ", ").append('"').append(COLUMNS[i]).append("\": ").append(value);
+      }
+      sb.append(r == rows.size() - 1 ? "}\n" : "},\n");
+    }
+    return sb.append("]\n").toString();
+  }
+
+  private static <E extends Enum<E>> List<E> parseList(Class<E> type, String csv) {
+    List<E> list = new ArrayList<>();
+    for (String name : csv.split(","))
+      list.add(Enum.valueOf(type, name.trim()));
+    return list;
+  }
+
+  public static void main(String[] args) {
+    boolean json = false;
+    List<SetBackendType> backends = parseList(SetBackendType.class, "CHRONICLE,MAPDB,HASHSET,OFFHEAP");
+    List<KeyType> keyTypes = parseList(KeyType.class, "INT,STRING");
+    List<Workload> workloads = parseList(Workload.class, "CONTAINS,INSERT");
+    long[] rates = {0};
+    int ops = 1000000;
+    int entries = 1000000;
+
+    for (String arg : args) {
+      String value = arg.substring(arg.indexOf('=') + 1);
+      if (arg.equals("json") || arg.equals("csv")) {
+        json = arg.equals("json");
+      } else if (arg.startsWith("backends=")) {
+        backends = parseList(SetBackendType.class, value);
+      } else if (arg.startsWith("keys=")) {
+        keyTypes = parseList(KeyType.class, value);
+      } else if (arg.startsWith("workloads=")) {
+        workloads = parseList(Workload.class, value);
+      } else if (arg.startsWith("rates=")) {
+        String[] steps = value.split(",");
+        rates = new long[steps.length];
+        for (int i = 0; i < steps.length; i++)
+          rates[i] = Long.parseLong(steps[i]);
+      } else if (arg.startsWith("ops=")) {
+        ops = Integer.parseInt(value);
+      } else if (arg.startsWith("entries=")) {
+        entries = Integer.parseInt(value);
+      } else {
+        throw new IllegalArgumentException("Unknown argument " + arg);
+      }
+    }
+
+    LatencyProfile profile = new LatencyProfile();
+    List<Row> rows = new ArrayList<>();
+    for (KeyType keyType : keyTypes) {
+      for (SetBackendType backend : backends) {
+        for (Workload workload : workloads) {
+          profile.measure(backend, keyType, workload, 0, WARMUP_OPS, WARMUP_OPS);
+          for (long rate : rates) {
+            List<Row> measured = profile.measure(backend, keyType, workload, rate, ops, entries);
+            for (Row row : measured) {
+              System.err.println(backend + " " + keyType + " " + workload + " rate " + rate + " " + row._latency
+                  + ": p50 " + row._histogram.percentile(50) + "ns, p99 " + row._histogram.percentile(99)
+                  + "ns, p99.9 " + row._histogram.percentile(99.9) + "ns, max " + row._histogram.max() + "ns");
+            }
+            rows.addAll(measured);
+          }
+        }
+      }
+    }
+    System.out.print(json ? toJson(rows) : toCsv(rows));
+  }
+}
@@ -0,0 +1,130 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.HTreeMap;
+import org.mapdb.Serializer;
+import org.mapdb.Store;
+import org.mapdb.StoreDirect;
+
+/*
+  AggregationMap over a MapDB HTreeMap in direct (off-heap) memory, aggregates as a
+  long[NUM_AGGREGATES] value
+  HTreeMap has no way to update a value where it is stored, so aggregate() is a get
+  and a put: the value is deserialized, updated on heap and serialized back. The
+  fixed width AggregatesSerializer keeps that cheap: 32 bytes without length prefix,
+  decoded straight into the array, and every update rewrites a value record of the
+  same size, so the store does not have to move or reallocate it.
+  Every map owns its own DB so closing it releases the whole store.
+ */
+public class MapDBAggregationMap<K> implements AggregationMap<K> {
+  static final Serializer<long[]> AGGREGATES = new AggregatesSerializer();
+
+  private final DB _db;
+  private final HTreeMap<K, long[]> _map;
+
+  public MapDBAggregationMap(Class<K> keyClass) {
+    this(MapDBSetBackend.serializerFor(keyClass));
+  }
+
+  public MapDBAggregationMap(Serializer<K> keySerializer) {
+    _db = DBMaker.memoryDirectDB().make();
+    // counters keep size() constant time, HTreeMap walks every entry without them
+    _map = _db.hashMap("aggregates", keySerializer, AGGREGATES).counterEnable().createOrOpen();
+  }
+
+  // count, sum, min, max as four longs
+  static final class AggregatesSerializer implements Serializer<long[]> {
+    @Override
+    public void serialize(DataOutput2 out, long[] aggregates) throws IOException {
+      for (int i = 0; i < NUM_AGGREGATES; i++) {
+        out.writeLong(aggregates[i]);
+      }
+    }
+
+    @Override
+    public long[] deserialize(DataInput2 in, int available) throws IOException {
+      long[] aggregates = new long[NUM_AGGREGATES];
+      for (int i = 0; i < NUM_AGGREGATES; i++) {
+        aggregates[i] = in.readLong();
+      }
+      return aggregates;
+    }
+
+    @Override
+    public int fixedSize() {
+      return NUM_AGGREGATES * Long.BYTES;
+    }
+
+    @Override
+    public boolean isTrusted() {
+      return true;
+    }
+
+    @Override
+    public boolean equals(long[] first, long[] second) {
+      return Arrays.equals(first, second);
+    }
+
+    @Override
+    public int hashCode(long[] aggregates, int seed) {
+      return Arrays.hashCode(aggregates) ^ seed;
+    }
+  }
+
+  @Override
+  public void aggregate(K key, long value) {
+    long[] aggregates = _map.get(key);
+    if (aggregates == null) {
+      aggregates = new long[]{1, value, value, value};
+    } else {
+      aggregates[COUNT]++;
+      aggregates[SUM] += value;
+      aggregates[MIN] = Math.min(aggregates[MIN], value);
+      aggregates[MAX] = Math.max(aggregates[MAX], value);
+    }
+    _map.put(key, aggregates);
+  }
+
+  @Override
+  public boolean get(K key, long[] aggregates) {
+    long[] group = _map.get(key);
+    if (group == null) {
+      return false;
+    }
+    System.arraycopy(group, 0, aggregates, 0, NUM_AGGREGATES);
+    return true;
+  }
+
+  @Override
+  public void forEach(GroupConsumer<K> consumer) {
+    for (Map.Entry<K, long[]> entry : _map.getEntries()) {
+      long[] group = entry.getValue();
+      consumer.accept(entry.getKey(), group[COUNT], group[SUM], group[MIN], group[MAX]);
+    }
+  }
+
+  @Override
+  public long size() {
+    return _map.sizeLong();
+  }
+
+  @Override
+  public long memoryUsed() {
+    Store store = _db.getStore();
+    if (store instanceof StoreDirect) {
+      return ((StoreDirect) store).getTotalSize();
+    }
+    return 0;
+  }
+
+  @Override
+  public void close() {
+    _db.close();
+  }
+}
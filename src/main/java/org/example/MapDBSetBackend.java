@@ -0,0 +1,109 @@
+package org.example;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Set;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
+import org.mapdb.Store;
+import org.mapdb.StoreDirect;
+
+/*
+  SetBackend over a MapDB HTreeMap key set in direct (off-heap) memory, or in a
+  memory mapped file for StorageType.MMAP
+  Every backend owns its own DB so closing the set releases the whole store
+ */
+public class MapDBSetBackend<K> implements SetBackend<K> {
+  private final DB _db;
+  private final Set<K> _set;
+  private long _allocateStartSize; // reserved up front, getTotalSize() only counts what the store has used
+
+  public MapDBSetBackend(Class<K> keyClass) {
+    this(serializerFor(keyClass));
+  }
+
+  public MapDBSetBackend(Serializer<K> serializer) {
+    _db = DBMaker.memoryDirectDB().make();
+    _set = hashSet(_db, serializer).createOrOpen();
+  }
+
+  public MapDBSetBackend(Serializer<K> serializer, StorageType storage) {
+    _db = storage == StorageType.MMAP ? mmapDB() : DBMaker.memoryDirectDB().make();
+    _set = hashSet(_db, serializer).createOrOpen();
+  }
+
+  // allocateStartSize pre-sizes the direct memory store instead of growing it in increments
+  public MapDBSetBackend(Serializer<K> serializer, long allocateStartSize) {
+    _db = DBMaker.memoryDirectDB().allocateStartSize(allocateStartSize).make();
+    _set = hashSet(_db, serializer).createOrOpen();
+    _allocateStartSize = allocateStartSize;
+  }
+
+  private static DB mmapDB() {
+    File file = StorageType.newFile("mapdb-set");
+    return DBMaker.fileDB(file).fileMmapEnable().cleanerHackEnable().fileDeleteAfterClose().make();
+  }
+
+  // concurrency sets both the HTreeMap segment count and the store lock scale
+  public MapDBSetBackend(Serializer<K> serializer, int concurrency) {
+    _db = DBMaker.memoryDirectDB().concurrencyScale(concurrency).make();
+    _set = hashSet(_db, serializer).layout(concurrency, 16, 4).createOrOpen();
+  }
+
+  // HTreeMap.size() walks every entry unless counters are enabled, these are kept per segment under its lock
+  private static <K> DB.HashSetMaker<K> hashSet(DB db, Serializer<K> serializer) {
+    return db.hashSet("set").serializer(serializer).counterEnable();
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K> Serializer<K> serializerFor(Class<K> keyClass) {
+    if (keyClass == Integer.class) {
+      return (Serializer<K>) Serializer.INTEGER;
+    }
+    if (keyClass == Long.class) {
+      return (Serializer<K>) Serializer.LONG;
+    }
+    if (keyClass == String.class) {
+      return (Serializer<K>) Serializer.STRING;
+    }
+    if (keyClass == byte[].class) {
+      return (Serializer<K>) Serializer.BYTE_ARRAY;
+    }
+    return (Serializer<K>) Serializer.JAVA;
+  }
+
+  @Override
+  public boolean add(K key) {
+    return _set.add(key);
+  }
+
+  @Override
+  public boolean contains(K key) {
+    return _set.contains(key);
+  }
+
+  @Override
+  public Iterator<K> iterator() {
+    return _set.iterator();
+  }
+
+  @Override
+  public long size() {
+    return _set.size();
+  }
+
+  @Override
+  public long memoryUsed() {
+    Store store = _db.getStore();
+    if (store instanceof StoreDirect) {
+      return Math.max(_allocateStartSize, ((StoreDirect) store).getTotalSize());
+    }
+    return 0;
+  }
+
+  @Override
+  public void close() {
+    _db.close();
+  }
+}
@@ -0,0 +1,186 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Hard limit on the native memory of all sets of all running queries
+  Every query opens a Query with its own limit and hands it to the sets it creates
+  (SetBackendType.create with a MemoryReservation), which reserve bytes before they
+  grow. A reservation must fit both the query limit and the global limit; when it
+  does not, the query's SpillCallback, if any, gets one chance to free memory (e.g.
+  spill another operator to disk and close its set) before reserve throws
+  MemoryBudgetExceededException. Without a callback the query fails fast.
+  Thread safe: queries reserve concurrently and a query may reserve from several
+  threads (e.g. the partitions of SetMerge). Closing a Query returns whatever its
+  sets still hold, so a query which fails half way cannot leak budget.
+ */
+public final class MemoryBudget {
+  private final long _limit;
+  private final AtomicLong _used = new AtomicLong();
+  private final AtomicLong _peak = new AtomicLong();
+  private final AtomicLong _rejections = new AtomicLong();
+  private final Map<String, Query> _queries = new ConcurrentHashMap<>();
+
+  public MemoryBudget(long limitBytes) {
+    if (limitBytes <= 0) {
+      throw new IllegalArgumentException("Budget must be positive: " + limitBytes);
+    }
+    _limit = limitBytes;
+  }
+
+  /*
+    Called when a reservation of bytesNeeded does not fit. Runs on the thread which
+    reserves, possibly while the set which wants to grow is part way through an add,
+    so it must free memory of other sets only.
+   */
+  @FunctionalInterface
+  public interface SpillCallback {
+    void spill(Query query, long bytesNeeded);
+  }
+
+  // fail fast query
+  public Query openQuery(String id, long limitBytes) {
+    return openQuery(id, limitBytes, null);
+  }
+
+  public Query openQuery(String id, long limitBytes, SpillCallback onOverrun) {
+    Query query = new Query(id, limitBytes, onOverrun);
+    if (_queries.putIfAbsent(id, query) != null) {
+      throw new IllegalArgumentException("Query " + id + " is already open");
+    }
+    return query;
+  }
+
+  public long limit() {
+    return _limit;
+  }
+
+  public long used() {
+    return _used.get();
+  }
+
+  // highest usage seen, never above limit()
+  public long peak() {
+    return _peak.get();
+  }
+
+  public long available() {
+    return _limit - _used.get();
+  }
+
+  // reservations refused so far, across all queries
+  public long rejections() {
+    return _rejections.get();
+  }
+
+  // snapshot of the open queries, e.g. to report per query usage
+  public List<Query> queries() {
+    return new ArrayList<>(_queries.values());
+  }
+
+  private boolean tryReserveGlobal(long bytes) {
+    long used;
+    do {
+      used = _used.get();
+      if (used + bytes > _limit) {
+        return false;
+      }
+    } while (!_used.compareAndSet(used, used + bytes));
+    _peak.accumulateAndGet(used + bytes, Math::max);
+    return true;
+  }
+
+  public final class Query implements MemoryReservation, AutoCloseable {
+    private final String _id;
+    private final long _limit;
+    private final SpillCallback _onOverrun;
+    private final AtomicLong _used = new AtomicLong();
+    private final AtomicLong _peak = new AtomicLong();
+    private volatile boolean _closed;
+
+    private Query(String id, long limit, SpillCallback onOverrun) {
+      _id = id;
+      _limit = limit;
+      _onOverrun = onOverrun;
+    }
+
+    public String id() {
+      return _id;
+    }
+
+    public long limit() {
+      return _limit;
+    }
+
+    public long used() {
+      return _used.get();
+    }
+
+    // highest usage seen, to size the limits of similar queries
+    public long peak() {
+      return _peak.get();
+    }
+
+    private boolean tryReserve(long bytes) {
+      long used;
+      do {
+        used = _used.get();
+        if (used + bytes > _limit) {
+          return false;
+        }
+      } while (!_used.compareAndSet(used, used + bytes));
+      if (!tryReserveGlobal(bytes)) {
+        _used.addAndGet(-bytes);
+        return false;
+      }
+      _peak.accumulateAndGet(used + bytes, Math::max);
+      return true;
+    }
+
+    @Override
+    public void reserve(long bytes) {
+      if (_closed) {
+        throw new IllegalStateException("Query " + _id + " is closed");
+      }
+      if (tryReserve(bytes)) {
+        return;
+      }
+      if (_onOverrun != null) {
+        _onOverrun.spill(this, bytes);
+        if (tryReserve(bytes)) {
+          return;
+        }
+      }
+      _rejections.incrementAndGet();
+      throw new MemoryBudgetExceededException(_id, bytes, _used.get(), _limit, MemoryBudget.this._used.get(),
+          MemoryBudget.this._limit);
+    }
+
+    // no-op once the query is closed, close() already returned the bytes
+    @Override
+    public void release(long bytes) {
+      long used;
+      do {
+        if (_closed) {
+          return;
+        }
+        used = _used.get();
+      } while (!_used.compareAndSet(used, used - bytes));
+      MemoryBudget.this._used.addAndGet(-bytes);
+    }
+
+    // hands back what the sets of the query did not release themselves
+    @Override
+    public void close() {
+      if (!_closed) {
+        _closed = true;
+        MemoryBudget.this._used.addAndGet(-_used.getAndSet(0));
+        _queries.remove(_id, this);
+      }
+    }
+  }
+}
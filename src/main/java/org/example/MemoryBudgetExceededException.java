@@ -0,0 +1,28 @@
+package org.example;
+
+/*
+  Thrown by MemoryBudget.Query.reserve when a reservation fits neither the query
+  limit nor what is left of the global budget, even after the spill callback ran
+ */
+public class MemoryBudgetExceededException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  private final String _queryId;
+  private final long _requested;
+
+  public MemoryBudgetExceededException(String queryId, long requested, long queryUsed, long queryLimit,
+      long globalUsed, long globalLimit) {
+    super("Query " + queryId + " cannot reserve " + requested + " bytes: query uses " + queryUsed + " of "
+        + queryLimit + ", all queries use " + globalUsed + " of " + globalLimit);
+    _queryId = queryId;
+    _requested = requested;
+  }
+
+  public String queryId() {
+    return _queryId;
+  }
+
+  public long requested() {
+    return _requested;
+  }
+}
@@ -0,0 +1,26 @@
+package org.example;
+
+/*
+  Account that off-heap sets charge before they allocate native memory and credit
+  when they free it, see MemoryBudget.Query
+  reserve either succeeds or throws (MemoryBudgetExceededException) without reserving
+  anything. The OFFHEAP sets reserve before they change anything, so an add which
+  cannot grow the set throws and leaves it unchanged, working at its current size.
+  BudgetedSet can only charge a library set after it grew, see there.
+ */
+public interface MemoryReservation {
+  // no accounting, the default of every set
+  MemoryReservation UNLIMITED = new MemoryReservation() {
+    @Override
+    public void reserve(long bytes) {
+    }
+
+    @Override
+    public void release(long bytes) {
+    }
+  };
+
+  void reserve(long bytes);
+
+  void release(long bytes);
+}
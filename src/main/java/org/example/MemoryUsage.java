@@ -2,184 +2,248 @@ package org.example;
 
 import java.lang.management.BufferPoolMXBean;
 import java.lang.management.ManagementFactory;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import net.openhft.chronicle.set.ChronicleSet;
-import net.openhft.chronicle.set.ChronicleSetBuilder;
+import java.util.Locale;
+import net.openhft.chronicle.core.OS;
 import org.apache.commons.lang3.StringUtils;
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
-import org.mapdb.Serializer;
 
-
-// 100mb to 5gb increments of 500mb
+/*
+  Memory footprint per entry of every SetBackend and key type across _gb steps
+  Each run loads one set from an empty baseline and reports what it added:
+    heap       used heap after full GCs (keys held by heap sets are counted here)
+    direct     "direct" BufferPool, MapDB memoryDirectDB lives here
+    mapped     "mapped" BufferPool, MMAP storage
+    native     Chronicle Memory native allocations, our OFFHEAP sets
+    reported   SetBackend.memoryUsed(), e.g. Chronicle offHeapMemoryUsed()
+    rss        process resident set size
+  bytesPerEntry is (heap + max(reported, direct + mapped + native)) / entries and
+  overhead is that total over the raw key bytes stored.
+
+  Usage: MemoryUsage [csv|json] [gb=0.001,0.005] [backends=CHRONICLE,MAPDB] [keys=INT,STRING,BYTE_ARRAY] [storage=MMAP]
+ */
 public class MemoryUsage {
+  private static final long GB_TO_BYTES = 1024*1024*1024;
+  private static final int AVG_KEY_LENGTH = 120;
+  private static final int MAX_GC_ROUNDS = 10;
+  private static final double WARMUP_GB = 0.0001; // loads classes and JIT compiles before the first measured run
 
-  private int ROUNDS = 5;
-  private double[] _gb = {0.001,0.005,0.05,0.5,1.0};
-
-  private int[] _numIntKeys;
-
-  private int[] _numVarKeys;
-
-  private int _avgKeyLen = 120;
-
-  private Set<String> stringSetKeys;
+  enum KeyType {
+    INT(4),
+    STRING(AVG_KEY_LENGTH),
+    BYTE_ARRAY(AVG_KEY_LENGTH);
 
-  private Set[] set;
-  private
-  void init(){
-    int GB_TO_BYTES = 1024*1024*1024;
-    _numIntKeys = new int[ROUNDS];
-    _numVarKeys = new int[ROUNDS];
+    private final int _bytesPerKey;
 
-    for(int i=0;i<ROUNDS;i++) {
-      _numIntKeys[i] = (int) (GB_TO_BYTES * _gb[i]) / 4;
-      _numVarKeys[i] = (int) (GB_TO_BYTES * _gb[i]) / _avgKeyLen;
+    KeyType(int bytesPerKey) {
+      _bytesPerKey = bytesPerKey;
     }
-    RandomUtils random = new RandomUtils();
-    //stringSetKeys = new HashSet<>(_numVarKeys[ROUNDS-1]);
-    //random.buildStringSetRandomRangeExact(stringSetKeys,_numVarKeys[ROUNDS-1],_avgKeyLen); // only 1GB worth of keys
-    set = new Set[ROUNDS];
-  }
-
-  private static String toGB(long init) {
-    return (Long.valueOf(init).doubleValue() / (1024 * 1024 * 1024)) + " GB";
-  }
 
-  private static String toMB(long init) {
-    return (Long.valueOf(init).doubleValue() / (1024 * 1024)) + " MB";
+    int numEntries(double gb) {
+      return (int) (GB_TO_BYTES * gb / _bytesPerKey);
+    }
   }
 
-  public void printMemoryChronicle(ChronicleSet set) throws InterruptedException {
-    System.gc();
-    Thread.sleep(30000);
-    System.out.println("Heap Memory: " + toMB(Runtime.getRuntime().totalMemory()-Runtime.getRuntime().freeMemory())); //heap memory
-    System.out.println("OffHeap Memory for Chronicle Set " + toMB(set.offHeapMemoryUsed())); //offHeapMemory
-  }
+  static class Snapshot {
+    long _heap;
+    long _direct;
+    long _mapped;
+    long _native;
+    long _rss;
+
+    static Snapshot take() {
+      Snapshot snapshot = new Snapshot();
+      snapshot._heap = settledHeapUsed();
+      for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+        if ("direct".equals(pool.getName()))
+          snapshot._direct = pool.getMemoryUsed();
+        else if ("mapped".equals(pool.getName()))
+          snapshot._mapped = pool.getMemoryUsed();
+      }
+      snapshot._native = OS.memory().nativeMemoryUsed();
+      snapshot._rss = ProcessStats.residentBytes();
+      return snapshot;
+    }
 
-  public void printMemoryMapDB() throws InterruptedException {
-    System.gc();
-    Thread.sleep(30000);
-    System.out.println("Heap Memory: " + toMB(Runtime.getRuntime().totalMemory()-Runtime.getRuntime().freeMemory())); //heap memory
-    System.out.println("OffHeap Memory for Map DB "); //offHeapMemory
-
-    List<BufferPoolMXBean> pools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
-    for (BufferPoolMXBean pool : pools) {
-      System.out.println(pool.getName());
-      System.out.println(pool.getCount());
-      System.out.println("memory used " + pool.getMemoryUsed() + " mb: " + toMB(pool.getMemoryUsed()));
-      System.out.println("total capacity" + pool.getMemoryUsed() + " mb: " +  toMB(pool.getTotalCapacity()));
-      System.out.println();
+    // full GCs until used heap stops shrinking, instead of one System.gc() and a long sleep
+    private static long settledHeapUsed() {
+      long used = Long.MAX_VALUE;
+      for (int i = 0; i < MAX_GC_ROUNDS; i++) {
+        System.gc();
+        long now = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        if (now >= used)
+          return now;
+        used = now;
+      }
+      return used;
     }
   }
 
- public void checkMemoryUsageMapDBInt() throws InterruptedException {
-   DB db = DBMaker.memoryDirectDB().make();
-    for(int i=4;i<ROUNDS;i++) {
-      System.out.println("Heap Memory: " + toMB(Runtime.getRuntime().totalMemory()-Runtime.getRuntime().freeMemory())); //heap memory
-
-      String s = "int" + i;
-
-      System.out.println("*****************Iteration " + i + " Keys " +_numIntKeys[i] + " GB " + _gb[i] + "*************************");
-      printMemoryMapDB();
-
-      set[i]= db.hashSet(s).serializer(Serializer.INTEGER).createOrOpen();
+  static class Row {
+    SetBackendType _backend;
+    KeyType _keyType;
+    StorageType _storage;
+    double _gb;
+    long _entries;
+    long _rawBytes;
+    long _heap;
+    long _direct;
+    long _mapped;
+    long _native;
+    long _reported;
+    long _rss;
+
+    long totalBytes() {
+      // deltas can dip below zero when an earlier run's buffers are freed in between
+      return Math.max(0, _heap) + Math.max(_reported, Math.max(0, _direct + _mapped + _native));
+    }
 
-      int value;
-      for (value = 0; value < _numIntKeys[i]; ++value)
-        set[i].add(value);
-      System.out.println("---- After Loading: -----");
-      //System.out.println("Size of set: " + set[i].size());
+    double bytesPerEntry() {
+      return _entries == 0 ? 0 : (double) totalBytes() / _entries;
+    }
 
-      printMemoryMapDB();
+    double overhead() {
+      return _rawBytes == 0 ? 0 : (double) totalBytes() / _rawBytes;
     }
   }
 
-  public void checkMemoryUsageMapDBString() throws InterruptedException {
-    DB db = DBMaker.memoryDirectDB().make();
-    RandomUtils random = new RandomUtils();
-    printMemoryMapDB();
-    for(int i=0;i<ROUNDS;i++) {
-      //System.out.println("Heap Memory: " + toMB(Runtime.getRuntime().totalMemory()-Runtime.getRuntime().freeMemory())); //heap memory
-
-      String s = "s" + i;
-      System.out.println("**************************Iteration " + i + " Keys " +_numVarKeys[i] + " GB " + _gb[i] + "*******************************");
-      printMemoryMapDB();
-
-      set[i]= db.hashSet(s).serializer(Serializer.STRING).createOrOpen();
-      //printMemoryMapDB();
-
-      //random.buildStringSetRandomRangeExact(set,_numVarKeys[i],_avgKeyLen*2);
-      random.CopyFromSet(stringSetKeys,set[i],_numVarKeys[i]);
-
-      System.out.println("---- After Loading: -----");
-      printMemoryMapDB();
-      //System.out.println("Size of set: "+set[i].size());
+  private static final String[] COLUMNS = {"backend", "keyType", "storage", "gb", "entries", "rawBytes", "heap",
+      "direct", "mapped", "native", "reported", "rss", "bytesPerEntry", "overhead"};
+
+  private final RandomUtils _random = new RandomUtils();
+
+  public Row measure(SetBackendType backend, KeyType keyType, StorageType storage, double gb) {
+    int numEntries = keyType.numEntries(gb);
+    Row row = new Row();
+    row._backend = backend;
+    row._keyType = keyType;
+    row._storage = storage;
+    row._gb = gb;
+
+    Snapshot before = Snapshot.take();
+    SetBackend<?> set = load(backend, keyType, storage, numEntries, row);
+    try {
+      Snapshot after = Snapshot.take();
+      row._entries = set.size();
+      row._heap = after._heap - before._heap;
+      row._direct = after._direct - before._direct;
+      row._mapped = after._mapped - before._mapped;
+      row._native = after._native - before._native;
+      row._rss = after._rss - before._rss;
+      row._reported = set.memoryUsed();
+    } finally {
+      set.close();
     }
+    return row;
   }
 
-  public void checkMemoryUsageChronicleInt() throws InterruptedException {
-    for(int i=0;i<ROUNDS;i++) {
-      System.gc();
-      Thread.sleep(30000);
-      System.out.println("Initial Heap Memory:" +  toMB(Runtime.getRuntime().totalMemory()-Runtime.getRuntime().freeMemory()));
-
-      set[i] = ChronicleSetBuilder.of(Integer.class).entries(_numIntKeys[i]).create();
-
-      System.out.println("*******************Iteration " + i + " Keys " +_numIntKeys[i] + " GB " + _gb[i] + "**********************");
-
-      int value;
-      for (value = 0; value < _numIntKeys[i]; ++value)
-        set[i].add(value);
-
-      System.out.println("---- After Loading: -----");
-      System.out.println("Size of set: " + set[i].size());
-
-      printMemoryChronicle((ChronicleSet) set[i]);
+  // keys are generated while loading so only the ones the set keeps stay reachable
+  private SetBackend<?> load(SetBackendType backend, KeyType keyType, StorageType storage, int numEntries, Row row) {
+    switch (keyType) {
+      case INT:
+        IntSetBackend ints = backend.createIntSet(numEntries, storage);
+        for (int value = 0; value < numEntries; ++value) {
+          if (ints.add(value))
+            row._rawBytes += 4;
+        }
+        return ints;
+      case STRING:
+        SetBackend<String> strings = backend.create(String.class, numEntries, StringUtils.repeat("a", AVG_KEY_LENGTH), storage);
+        for (int i = 0; i < numEntries; ++i) {
+          String key = _random.generateRandomString(AVG_KEY_LENGTH/2, AVG_KEY_LENGTH*3/2);
+          if (strings.add(key))
+            row._rawBytes += key.length(); // alphabetic, one byte per char in UTF-8
+        }
+        return strings;
+      case BYTE_ARRAY:
+        SetBackend<byte[]> arrays = backend.create(byte[].class, numEntries, new byte[AVG_KEY_LENGTH], storage);
+        for (int i = 0; i < numEntries; ++i) {
+          byte[] key = _random.generateRandomByteArray(AVG_KEY_LENGTH*2);
+          if (arrays.add(key))
+            row._rawBytes += key.length;
+        }
+        return arrays;
+      default:
+        throw new IllegalArgumentException("Unknown key type " + keyType);
     }
   }
 
-  public void checkMemoryUsageChronicleString() throws InterruptedException {
-    RandomUtils random = new RandomUtils();
-    System.out.println("Heap Memory: " + toMB(Runtime.getRuntime().totalMemory()-Runtime.getRuntime().freeMemory())); //heap memory
-
-    String str = StringUtils.repeat("a", _avgKeyLen);
-
-    for(int i=0;i<ROUNDS;i++) {
-      System.gc();
-      Thread.sleep(30000);
-      System.out.println("Initial Heap Memory:" +  toMB(Runtime.getRuntime().totalMemory()-Runtime.getRuntime().freeMemory()));
-
-
-      set[i] = ChronicleSetBuilder.of(String.class).averageKey(str).entries(_numVarKeys[i]).create();
+  private static String[] values(Row row) {
+    return new String[]{row._backend.name(), row._keyType.name(), row._storage.name(), Double.toString(row._gb),
+        Long.toString(row._entries), Long.toString(row._rawBytes), Long.toString(row._heap), Long.toString(row._direct),
+        Long.toString(row._mapped), Long.toString(row._native), Long.toString(row._reported), Long.toString(row._rss),
+        String.format(Locale.ROOT, "%.2f", row.bytesPerEntry()), String.format(Locale.ROOT, "%.3f", row.overhead())};
+  }
 
-      System.out.println("*******************Iteration " + i + " Keys " +_numVarKeys[i] + " GB " + _gb[i] + "**********************");
-      //printMemoryChronicle((ChronicleSet) set[i]);
-      System.out.println("---- After Loading: -----");
-      random.CopyFromSet(stringSetKeys,set[i],_numVarKeys[i]);
-      System.out.println("Size of set: "+set[i].size());
+  static String toCsv(List<Row> rows) {
+    StringBuilder sb = new StringBuilder(String.join(",", COLUMNS)).append('\n');
+    for (Row row : rows)
+      sb.append(String.join(",", values(row))).append('\n');
+    return sb.toString();
+  }
 
-      printMemoryChronicle((ChronicleSet) set[i]);
+  static String toJson(List<Row> rows) {
+    StringBuilder sb = new StringBuilder("[\n");
+    for (int r = 0; r < rows.size(); r++) {
+      String[] values = values(rows.get(r));
+      sb.append("  {");
+      for (int i = 0; i < COLUMNS.length; i++) {
+        // the first three columns are enum names, the rest numbers
+        String value = i < 3 ? '"' + values[i] + '"' : values[i];
+        sb.append(i == 0 ? "" : ", ").append('"').append(COLUMNS[i]).append("\": ").append(value);
+      }
+      sb.append(r == rows.size() - 1 ? "}\n" : "},\n");
     }
+    return sb.append("]\n").toString();
   }
 
-  // so that the sets created are not garbage collected
-  void callToPreventGC(){
-    for(int i=0;i<ROUNDS;i++)
-      set[i].size();
+  private static <E extends Enum<E>> List<E> parseList(Class<E> type, String csv) {
+    List<E> list = new ArrayList<>();
+    for (String name : csv.split(","))
+      list.add(Enum.valueOf(type, name.trim()));
+    return list;
   }
 
-  public static void main(String[] args) throws InterruptedException {
-    System.out.println("Initial Heap Memory: " + toMB(Runtime.getRuntime().totalMemory()-Runtime.getRuntime().freeMemory())); //heap memory
-    MemoryUsage m = new MemoryUsage();
-    m.init();
-    //m.checkMemoryUsageChronicleInt();
-    //m.checkMemoryUsageChronicleString();
-    m.checkMemoryUsageMapDBInt();
-    //m.checkMemoryUsageMapDBString();
-    m.callToPreventGC();
-  }
+  public static void main(String[] args) {
+    boolean json = false;
+    double[] gbSteps = {0.001, 0.005, 0.05, 0.5, 1.0};
+    List<SetBackendType> backends = parseList(SetBackendType.class, "CHRONICLE,MAPDB,HASHSET,OFFHEAP");
+    List<KeyType> keyTypes = parseList(KeyType.class, "INT,STRING,BYTE_ARRAY");
+    StorageType storage = StorageType.MEMORY;
+
+    for (String arg : args) {
+      String value = arg.substring(arg.indexOf('=') + 1);
+      if (arg.equals("json") || arg.equals("csv")) {
+        json = arg.equals("json");
+      } else if (arg.startsWith("gb=")) {
+        String[] steps = value.split(",");
+        gbSteps = new double[steps.length];
+        for (int i = 0; i < steps.length; i++)
+          gbSteps[i] = Double.parseDouble(steps[i]);
+      } else if (arg.startsWith("backends=")) {
+        backends = parseList(SetBackendType.class, value);
+      } else if (arg.startsWith("keys=")) {
+        keyTypes = parseList(KeyType.class, value);
+      } else if (arg.startsWith("storage=")) {
+        storage = StorageType.valueOf(value);
+      } else {
+        throw new IllegalArgumentException("Unknown argument " + arg);
+      }
+    }
 
+    MemoryUsage memoryUsage = new MemoryUsage();
+    List<Row> rows = new ArrayList<>();
+    for (KeyType keyType : keyTypes) {
+      for (SetBackendType backend : backends) {
+        memoryUsage.measure(backend, keyType, storage, WARMUP_GB);
+        for (double gb : gbSteps) {
+          Row row = memoryUsage.measure(backend, keyType, storage, gb);
+          System.err.println(backend + " " + keyType + " " + gb + " GB: " + row._entries + " entries, "
+              + String.format(Locale.ROOT, "%.2f", row.bytesPerEntry()) + " bytes/entry");
+          rows.add(row);
+        }
+      }
+    }
+    System.out.print(json ? toJson(rows) : toCsv(rows));
+  }
 }
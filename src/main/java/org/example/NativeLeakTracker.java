@@ -0,0 +1,104 @@
+package org.example;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import net.openhft.chronicle.core.OS;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/*
+  Fails a benchmark whose sets do not give back their memory
+  Measures direct, mapped and Chronicle native memory (as MemoryUsage does) after
+  each iteration and fails the run when it grew since the previous one. The first
+  iteration is only reported: it pays for one-off library allocations (Chronicle
+  initialisation, NIO buffer caches) which stay for the life of the JVM.
+  Sets created during an iteration are registered through open() and closed through
+  close(); whatever is still open when the iteration ends is closed here first, so a
+  set is always closed even when its own teardown did not run. Direct buffers are
+  only freed by GC, so the check runs a few GCs before it gives up.
+  -Dleak.toleranceBytes sets the growth allowed per iteration (default 64 KB, JMH
+  and the JDK keep some small per thread buffers).
+ */
+@State(Scope.Benchmark)
+public class NativeLeakTracker {
+  private static final long TOLERANCE_BYTES = Long.getLong("leak.toleranceBytes", 64 << 10);
+  private static final int MAX_GC_ROUNDS = 10;
+
+  private final List<AutoCloseable> _open = new ArrayList<>();
+  private long _baseline = -1; // usage after the previous iteration, -1 before the first
+  private boolean _checked;
+
+  // direct + mapped buffer pools + Chronicle Memory native allocations
+  static long nativeBytes() {
+    long bytes = OS.memory().nativeMemoryUsed();
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      bytes += pool.getMemoryUsed();
+    }
+    return bytes;
+  }
+
+  @Setup(Level.Iteration)
+  public void baseline() {
+    if (_baseline < 0) {
+      _baseline = nativeBytes();
+    }
+  }
+
+  public synchronized <S extends AutoCloseable> S open(S set) {
+    _open.add(set);
+    return set;
+  }
+
+  // closes set unless the tracker already closed it
+  public void close(AutoCloseable set) {
+    synchronized (this) {
+      if (!_open.remove(set)) {
+        return;
+      }
+    }
+    closeQuietly(set);
+  }
+
+  private static void closeQuietly(AutoCloseable set) {
+    try {
+      set.close();
+    } catch (Exception e) {
+      throw new IllegalStateException("Cannot close " + set, e);
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void check() throws InterruptedException {
+    List<AutoCloseable> open;
+    synchronized (this) {
+      open = new ArrayList<>(_open);
+      _open.clear();
+    }
+    for (AutoCloseable set : open) {
+      closeQuietly(set);
+    }
+    long leaked = nativeBytes() - _baseline;
+    for (int i = 0; i < MAX_GC_ROUNDS && leaked > TOLERANCE_BYTES; i++) {
+      System.gc();
+      Thread.sleep(20);
+      leaked = nativeBytes() - _baseline;
+    }
+    if (!open.isEmpty()) {
+      System.out.println("\nClosed " + open.size() + " set(s) left open by the iteration");
+    }
+    if (leaked > TOLERANCE_BYTES && _checked) {
+      throw new IllegalStateException("Iteration leaked " + leaked + " bytes of native memory (direct, mapped "
+          + "and Chronicle native), tolerance " + TOLERANCE_BYTES);
+    }
+    if (leaked > TOLERANCE_BYTES) {
+      System.out.println("\nFirst iteration kept " + leaked + " bytes of native memory, later iterations must not grow it");
+    }
+    _checked = true;
+    _baseline = nativeBytes();
+  }
+}
@@ -0,0 +1,187 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.OS;
+
+/*
+  Open addressing AggregationMap in native memory, the aggregates live in the slot
+  of their key
+  Keys are indexed by an OffHeapKeyTable whose slots carry the four aggregates:
+    [int hash][int length + 1][long key][long count][long sum][long min][long max]
+  Keys of up to 8 bytes (Integer keys, short byte[] and Strings) are stored in the
+  slot itself, longer ones in the arena of the table. A lookup compares hash and
+  length, then the key bytes in place, and aggregate() writes the four longs of the
+  slot it found: nothing is deserialized, boxed or allocated per row.
+  The table doubles once it is MAX_LOAD full, so entries is only a hint.
+  Subclasses encode keys into _scratch: Integer in native byte order, String as
+  UTF-8, byte[] as is and Record in the RecordCodec row layout.
+ */
+public abstract class OffHeapAggregationMap<K> implements AggregationMap<K> {
+  protected static final Memory MEMORY = OS.memory();
+  protected static final long BYTE_ARRAY_BASE = MEMORY.arrayBaseOffset(byte[].class);
+
+  private final OffHeapKeyTable _table;
+
+  protected byte[] _scratch = new byte[256];
+
+  protected OffHeapAggregationMap(long expectedEntries) {
+    _table = new OffHeapKeyTable(expectedEntries, NUM_AGGREGATES * Long.BYTES);
+  }
+
+  // writes key into _scratch from index 0 and returns its length
+  protected abstract int encode(K key);
+
+  // materialise the key stored at [address, address + length) for forEach()
+  protected abstract K decode(long address, int length);
+
+  @Override
+  public void aggregate(K key, long value) {
+    int length = encode(key);
+    int hash = OffHeapVarKeySet.hash(_scratch, 0, length);
+    long slot = _table.find(hash, _scratch, length);
+    if (OffHeapKeyTable.keyLength(slot) >= 0) {
+      long aggregates = OffHeapKeyTable.payload(slot);
+      MEMORY.writeLong(aggregates, MEMORY.readLong(aggregates) + 1);
+      MEMORY.writeLong(aggregates + 8, MEMORY.readLong(aggregates + 8) + value);
+      if (value < MEMORY.readLong(aggregates + 16)) {
+        MEMORY.writeLong(aggregates + 16, value);
+      }
+      if (value > MEMORY.readLong(aggregates + 24)) {
+        MEMORY.writeLong(aggregates + 24, value);
+      }
+      return;
+    }
+    long aggregates = OffHeapKeyTable.payload(_table.insert(slot, hash, _scratch, length));
+    MEMORY.writeLong(aggregates, 1);
+    MEMORY.writeLong(aggregates + 8, value);
+    MEMORY.writeLong(aggregates + 16, value);
+    MEMORY.writeLong(aggregates + 24, value);
+  }
+
+  @Override
+  public boolean get(K key, long[] aggregates) {
+    int length = encode(key);
+    long slot = _table.find(OffHeapVarKeySet.hash(_scratch, 0, length), _scratch, length);
+    if (OffHeapKeyTable.keyLength(slot) < 0) {
+      return false;
+    }
+    for (int i = 0; i < NUM_AGGREGATES; i++) {
+      aggregates[i] = MEMORY.readLong(OffHeapKeyTable.payload(slot) + (long) i * Long.BYTES);
+    }
+    return true;
+  }
+
+  @Override
+  public void forEach(GroupConsumer<K> consumer) {
+    for (int i = 0; i < _table.capacity(); i++) {
+      long slot = _table.slot(i);
+      int length = OffHeapKeyTable.keyLength(slot);
+      if (length >= 0) {
+        long aggregates = OffHeapKeyTable.payload(slot);
+        consumer.accept(decode(_table.keyAddress(slot, length), length), MEMORY.readLong(aggregates),
+            MEMORY.readLong(aggregates + 8), MEMORY.readLong(aggregates + 16), MEMORY.readLong(aggregates + 24));
+      }
+    }
+  }
+
+  @Override
+  public long size() {
+    return _table.size();
+  }
+
+  @Override
+  public long memoryUsed() {
+    return _table.memoryUsed();
+  }
+
+  @Override
+  public void close() {
+    _table.close();
+  }
+
+  static final class IntKeys extends OffHeapAggregationMap<Integer> {
+    IntKeys(long expectedEntries) {
+      super(expectedEntries);
+    }
+
+    @Override
+    protected int encode(Integer key) {
+      MEMORY.writeInt(_scratch, BYTE_ARRAY_BASE, key);
+      return Integer.BYTES;
+    }
+
+    @Override
+    protected Integer decode(long address, int length) {
+      return MEMORY.readInt(address);
+    }
+  }
+
+  static final class StringKeys extends OffHeapAggregationMap<String> {
+    StringKeys(long expectedEntries) {
+      super(expectedEntries);
+    }
+
+    @Override
+    protected int encode(String key) {
+      if (_scratch.length < Utf8.maxEncodedLength(key)) {
+        _scratch = new byte[Utf8.maxEncodedLength(key)];
+      }
+      return Utf8.encode(key, _scratch, 0);
+    }
+
+    @Override
+    protected String decode(long address, int length) {
+      byte[] bytes = new byte[length];
+      MEMORY.copyMemory(address, bytes, BYTE_ARRAY_BASE, length);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+
+  static final class ByteArrayKeys extends OffHeapAggregationMap<byte[]> {
+    ByteArrayKeys(long expectedEntries) {
+      super(expectedEntries);
+    }
+
+    @Override
+    protected int encode(byte[] key) {
+      if (_scratch.length < key.length) {
+        _scratch = new byte[key.length];
+      }
+      System.arraycopy(key, 0, _scratch, 0, key.length);
+      return key.length;
+    }
+
+    @Override
+    protected byte[] decode(long address, int length) {
+      byte[] key = new byte[length];
+      MEMORY.copyMemory(address, key, BYTE_ARRAY_BASE, length);
+      return key;
+    }
+  }
+
+  static final class RecordKeys extends OffHeapAggregationMap<Record> {
+    private final RecordCodec _codec;
+
+    RecordKeys(RecordCodec codec, long expectedEntries) {
+      super(expectedEntries);
+      _codec = codec;
+    }
+
+    @Override
+    protected int encode(Record key) {
+      int maxSize = _codec.maxSize(key);
+      if (_scratch.length < maxSize) {
+        _scratch = new byte[maxSize];
+      }
+      return _codec.encode(key, _scratch, 0);
+    }
+
+    @Override
+    protected Record decode(long address, int length) {
+      byte[] row = new byte[length];
+      MEMORY.copyMemory(address, row, BYTE_ARRAY_BASE, length);
+      return _codec.decode(row, 0);
+    }
+  }
+}
@@ -0,0 +1,654 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.OS;
+
+/*
+  Compressed bitmap of int keys in native memory, Roaring style
+  A key is split into its high and low 16 bits. Every high value in use has one
+  container for its low values, found through a directory sorted by high value:
+    ARRAY   sorted low values, 2 bytes each, up to MAX_ARRAY of them
+    BITMAP  one bit per low value, 8 KB
+    RUN     sorted runs of consecutive low values, 4 bytes each as [start][length - 1]
+  Arrays turn into bitmaps once they would outgrow one, and a full bitmap into a
+  single run. runOptimize() moves every container to its smallest form, which
+  makes dense ranges such as dictionary ids a few bytes per 64K keys.
+  High values are stored with the sign bit flipped, so containers and forEach run
+  in ascending int order.
+  Containers start with a HEADER_BYTES header: [int type][int cardinality][int capacity]
+  where capacity is the number of values (ARRAY) or runs (RUN) allocated.
+ */
+public class OffHeapBitmapSet implements IntSetBackend {
+  private static final Memory MEMORY = OS.memory();
+  private static final int ARRAY = 0;
+  private static final int BITMAP = 1;
+  private static final int RUN = 2;
+  private static final int HEADER_BYTES = 16;
+  private static final int BITMAP_BYTES = 1 << 13;
+  private static final int BITMAP_WORDS = BITMAP_BYTES / Long.BYTES;
+  private static final int MAX_ARRAY = BITMAP_BYTES / Short.BYTES; // past this a bitmap is smaller
+  private static final int MAX_RUNS = BITMAP_BYTES / Integer.BYTES;
+  private static final int MIN_CAPACITY = 4;
+  private static final int CONTAINER_VALUES = 1 << 16;
+
+  private long _highs;      // directory: sorted high values, one int each
+  private long _containers; // directory: container addresses in the same order
+  private int _count;       // containers in use
+  private int _directoryCapacity;
+  private long _size;
+  private int _last;        // directory index of the last container used, runs of keys share it
+  private final byte[] _scratch = new byte[Integer.BYTES];
+
+  public OffHeapBitmapSet() {
+    allocateDirectory(MIN_CAPACITY);
+  }
+
+  private void allocateDirectory(int capacity) {
+    long highs = MEMORY.allocate((long) capacity * Integer.BYTES);
+    long containers = MEMORY.allocate((long) capacity * Long.BYTES);
+    if (_count > 0) {
+      MEMORY.copyMemory(_highs, highs, (long) _count * Integer.BYTES);
+      MEMORY.copyMemory(_containers, containers, (long) _count * Long.BYTES);
+    }
+    freeDirectory();
+    _highs = highs;
+    _containers = containers;
+    _directoryCapacity = capacity;
+  }
+
+  private void freeDirectory() {
+    if (_highs != 0) {
+      MEMORY.freeMemory(_highs, (long) _directoryCapacity * Integer.BYTES);
+      MEMORY.freeMemory(_containers, (long) _directoryCapacity * Long.BYTES);
+    }
+  }
+
+  private static int high(int key) {
+    return (key >>> 16) ^ 0x8000;
+  }
+
+  // the high 16 bits of the keys of the container with the given high value
+  private static int keyBase(int high) {
+    return (high ^ 0x8000) << 16;
+  }
+
+  private int highAt(int index) {
+    return MEMORY.readInt(_highs + (long) index * Integer.BYTES);
+  }
+
+  private long container(int index) {
+    return MEMORY.readLong(_containers + (long) index * Long.BYTES);
+  }
+
+  private void setContainer(int index, long container) {
+    MEMORY.writeLong(_containers + (long) index * Long.BYTES, container);
+  }
+
+  // directory index of high, or -(insertion point) - 1
+  private int indexOf(int high) {
+    if (_last < _count && highAt(_last) == high) {
+      return _last;
+    }
+    int lo = 0;
+    int hi = _count - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int value = highAt(mid);
+      if (value < high) {
+        lo = mid + 1;
+      } else if (value > high) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -lo - 1;
+  }
+
+  private void insertContainer(int index, int high, long container) {
+    if (_count == _directoryCapacity) {
+      allocateDirectory(_directoryCapacity << 1);
+    }
+    MEMORY.copyMemory(_highs + (long) index * Integer.BYTES, _highs + (index + 1L) * Integer.BYTES,
+        (long) (_count - index) * Integer.BYTES);
+    MEMORY.copyMemory(_containers + (long) index * Long.BYTES, _containers + (index + 1L) * Long.BYTES,
+        (long) (_count - index) * Long.BYTES);
+    MEMORY.writeInt(_highs + (long) index * Integer.BYTES, high);
+    setContainer(index, container);
+    _count++;
+  }
+
+  // container header and layout
+
+  private static int type(long container) {
+    return MEMORY.readInt(container);
+  }
+
+  private static int cardinality(long container) {
+    return MEMORY.readInt(container + 4);
+  }
+
+  private static void setCardinality(long container, int cardinality) {
+    MEMORY.writeInt(container + 4, cardinality);
+  }
+
+  private static int capacity(long container) {
+    return MEMORY.readInt(container + 8);
+  }
+
+  private static long containerBytes(int type, int capacity) {
+    switch (type) {
+      case ARRAY:
+        return HEADER_BYTES + (long) capacity * Short.BYTES;
+      case RUN:
+        return HEADER_BYTES + (long) capacity * Integer.BYTES;
+      default:
+        return HEADER_BYTES + BITMAP_BYTES;
+    }
+  }
+
+  private static long containerBytes(long container) {
+    return containerBytes(type(container), capacity(container));
+  }
+
+  private static long newContainer(int type, int cardinality, int capacity) {
+    long bytes = containerBytes(type, capacity);
+    long container = MEMORY.allocate(bytes);
+    if (type == BITMAP) {
+      MEMORY.setMemory(container + HEADER_BYTES, BITMAP_BYTES, (byte) 0);
+    }
+    MEMORY.writeInt(container, type);
+    MEMORY.writeInt(container + 4, cardinality);
+    MEMORY.writeInt(container + 8, capacity);
+    return container;
+  }
+
+  private static void freeContainer(long container) {
+    MEMORY.freeMemory(container, containerBytes(container));
+  }
+
+  private static int arrayValue(long container, int index) {
+    return MEMORY.readShort(container + HEADER_BYTES + (long) index * Short.BYTES) & 0xFFFF;
+  }
+
+  private static int runStart(long container, int run) {
+    return MEMORY.readShort(container + HEADER_BYTES + (long) run * Integer.BYTES) & 0xFFFF;
+  }
+
+  private static int runEnd(long container, int run) {
+    long address = container + HEADER_BYTES + (long) run * Integer.BYTES;
+    return (MEMORY.readShort(address) & 0xFFFF) + (MEMORY.readShort(address + 2) & 0xFFFF);
+  }
+
+  private static void setRun(long container, int run, int start, int end) {
+    long address = container + HEADER_BYTES + (long) run * Integer.BYTES;
+    MEMORY.writeShort(address, (short) start);
+    MEMORY.writeShort(address + 2, (short) (end - start));
+  }
+
+  // index of low in an array container, or -(insertion point) - 1
+  private static int arraySearch(long container, int low) {
+    int lo = 0;
+    int hi = cardinality(container) - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int value = arrayValue(container, mid);
+      if (value < low) {
+        lo = mid + 1;
+      } else if (value > low) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -lo - 1;
+  }
+
+  // last run starting at or before low, -1 when low comes before every run
+  private static int runSearch(long container, int low) {
+    int lo = 0;
+    int hi = capacityUsed(container) - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (runStart(container, mid) <= low) {
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return lo - 1;
+  }
+
+  // runs in use of a RUN container, kept in the fourth header int
+  private static int capacityUsed(long container) {
+    return MEMORY.readInt(container + 12);
+  }
+
+  private static void setRuns(long container, int runs) {
+    MEMORY.writeInt(container + 12, runs);
+  }
+
+  private static boolean bitmapGet(long container, int low) {
+    return (MEMORY.readLong(container + HEADER_BYTES + (long) (low >>> 6) * Long.BYTES) & (1L << low)) != 0;
+  }
+
+  // copies the low values of any container into a new bitmap container
+  private static long toBitmap(long container) {
+    long bitmap = newContainer(BITMAP, cardinality(container), 0);
+    forEachLow(container, low -> {
+      long word = bitmap + HEADER_BYTES + (long) (low >>> 6) * Long.BYTES;
+      MEMORY.writeLong(word, MEMORY.readLong(word) | (1L << low));
+    });
+    return bitmap;
+  }
+
+  private static long toArray(long container) {
+    int cardinality = cardinality(container);
+    long array = newContainer(ARRAY, cardinality, Math.max(MIN_CAPACITY, cardinality));
+    int[] index = new int[1];
+    forEachLow(container, low -> MEMORY.writeShort(array + HEADER_BYTES + (long) index[0]++ * Short.BYTES, (short) low));
+    return array;
+  }
+
+  private static long toRuns(long container, int runs) {
+    long run = newContainer(RUN, cardinality(container), Math.max(MIN_CAPACITY, runs));
+    int[] state = {-1, -2}; // index of the current run and its end
+    forEachLow(container, low -> {
+      if (low == state[1] + 1) {
+        setRun(run, state[0], runStart(run, state[0]), low);
+      } else {
+        setRun(run, ++state[0], low, low);
+      }
+      state[1] = low;
+    });
+    setRuns(run, runs);
+    return run;
+  }
+
+  // number of runs of consecutive values in a container
+  private static int countRuns(long container) {
+    switch (type(container)) {
+      case RUN:
+        return capacityUsed(container);
+      case ARRAY: {
+        int cardinality = cardinality(container);
+        int runs = 0;
+        for (int i = 0; i < cardinality; i++) {
+          if (i == 0 || arrayValue(container, i) != arrayValue(container, i - 1) + 1) {
+            runs++;
+          }
+        }
+        return runs;
+      }
+      default: {
+        int runs = 0;
+        long previous = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+          long word = MEMORY.readLong(container + HEADER_BYTES + (long) w * Long.BYTES);
+          runs += Long.bitCount(word & ~((word << 1) | (previous >>> 63)));
+          previous = word;
+        }
+        return runs;
+      }
+    }
+  }
+
+  @Override
+  public boolean add(int key) {
+    int high = high(key);
+    int low = key & 0xFFFF;
+    int index = indexOf(high);
+    if (index < 0) {
+      index = -index - 1;
+      insertContainer(index, high, newContainer(ARRAY, 0, MIN_CAPACITY));
+    }
+    _last = index;
+    long container = container(index);
+    boolean added;
+    switch (type(container)) {
+      case ARRAY:
+        added = addToArray(index, container, low);
+        break;
+      case BITMAP:
+        added = addToBitmap(index, container, low);
+        break;
+      default:
+        added = addToRuns(index, container, low);
+    }
+    if (added) {
+      _size++;
+    }
+    return added;
+  }
+
+  private boolean addToArray(int index, long container, int low) {
+    int position = arraySearch(container, low);
+    if (position >= 0) {
+      return false;
+    }
+    position = -position - 1;
+    int cardinality = cardinality(container);
+    if (cardinality == MAX_ARRAY) {
+      long bitmap = toBitmap(container);
+      freeContainer(container);
+      setContainer(index, bitmap);
+      return addToBitmap(index, bitmap, low);
+    }
+    if (cardinality == capacity(container)) {
+      long grown = newContainer(ARRAY, cardinality, Math.min(MAX_ARRAY, cardinality << 1));
+      MEMORY.copyMemory(container + HEADER_BYTES, grown + HEADER_BYTES, (long) cardinality * Short.BYTES);
+      freeContainer(container);
+      setContainer(index, grown);
+      container = grown;
+    }
+    long values = container + HEADER_BYTES;
+    MEMORY.copyMemory(values + (long) position * Short.BYTES, values + (position + 1L) * Short.BYTES,
+        (long) (cardinality - position) * Short.BYTES);
+    MEMORY.writeShort(values + (long) position * Short.BYTES, (short) low);
+    setCardinality(container, cardinality + 1);
+    return true;
+  }
+
+  private boolean addToBitmap(int index, long container, int low) {
+    long word = container + HEADER_BYTES + (long) (low >>> 6) * Long.BYTES;
+    long bits = MEMORY.readLong(word);
+    if ((bits & (1L << low)) != 0) {
+      return false;
+    }
+    MEMORY.writeLong(word, bits | (1L << low));
+    int cardinality = cardinality(container) + 1;
+    setCardinality(container, cardinality);
+    if (cardinality == CONTAINER_VALUES) {
+      // every low value present, one run says the same in 4 bytes
+      setContainer(index, toRuns(container, 1));
+      freeContainer(container);
+    }
+    return true;
+  }
+
+  private boolean addToRuns(int index, long container, int low) {
+    int runs = capacityUsed(container);
+    int run = runSearch(container, low);
+    if (run >= 0 && low <= runEnd(container, run)) {
+      return false;
+    }
+    boolean extendsPrevious = run >= 0 && runEnd(container, run) == low - 1;
+    boolean extendsNext = run + 1 < runs && runStart(container, run + 1) == low + 1;
+    if (extendsPrevious && extendsNext) {
+      // low joins two runs into one
+      setRun(container, run, runStart(container, run), runEnd(container, run + 1));
+      long runsAddress = container + HEADER_BYTES;
+      MEMORY.copyMemory(runsAddress + (run + 2L) * Integer.BYTES, runsAddress + (run + 1L) * Integer.BYTES,
+          (long) (runs - run - 2) * Integer.BYTES);
+      setRuns(container, runs - 1);
+    } else if (extendsPrevious) {
+      setRun(container, run, runStart(container, run), low);
+    } else if (extendsNext) {
+      setRun(container, run + 1, low, runEnd(container, run + 1));
+    } else {
+      if (runs == MAX_RUNS) {
+        long bitmap = toBitmap(container);
+        freeContainer(container);
+        setContainer(index, bitmap);
+        return addToBitmap(index, bitmap, low);
+      }
+      if (runs == capacity(container)) {
+        long grown = newContainer(RUN, cardinality(container), Math.min(MAX_RUNS, runs << 1));
+        MEMORY.copyMemory(container + HEADER_BYTES, grown + HEADER_BYTES, (long) runs * Integer.BYTES);
+        setRuns(grown, runs);
+        freeContainer(container);
+        setContainer(index, grown);
+        container = grown;
+      }
+      long runsAddress = container + HEADER_BYTES;
+      MEMORY.copyMemory(runsAddress + (run + 1L) * Integer.BYTES, runsAddress + (run + 2L) * Integer.BYTES,
+          (long) (runs - run - 1) * Integer.BYTES);
+      setRun(container, run + 1, low, low);
+      setRuns(container, runs + 1);
+    }
+    setCardinality(container, cardinality(container) + 1);
+    return true;
+  }
+
+  @Override
+  public boolean contains(int key) {
+    int index = indexOf(high(key));
+    if (index < 0) {
+      return false;
+    }
+    _last = index;
+    long container = container(index);
+    int low = key & 0xFFFF;
+    switch (type(container)) {
+      case ARRAY:
+        return arraySearch(container, low) >= 0;
+      case BITMAP:
+        return bitmapGet(container, low);
+      default:
+        int run = runSearch(container, low);
+        return run >= 0 && low <= runEnd(container, run);
+    }
+  }
+
+  // moves every container to its smallest form, e.g. once a set is fully loaded
+  public void runOptimize() {
+    for (int i = 0; i < _count; i++) {
+      long container = container(i);
+      int cardinality = cardinality(container);
+      int runs = countRuns(container);
+      long arrayBytes = cardinality <= MAX_ARRAY ? containerBytes(ARRAY, cardinality) : Long.MAX_VALUE;
+      long runBytes = runs <= MAX_RUNS ? containerBytes(RUN, runs) : Long.MAX_VALUE;
+      long bitmapBytes = containerBytes(BITMAP, 0);
+      long optimized;
+      if (runBytes <= arrayBytes && runBytes < bitmapBytes) {
+        optimized = toRuns(container, runs);
+      } else if (arrayBytes < bitmapBytes) {
+        optimized = toArray(container);
+      } else {
+        optimized = type(container) == BITMAP ? container : toBitmap(container);
+      }
+      if (optimized != container) {
+        freeContainer(container);
+        setContainer(i, optimized);
+      }
+    }
+  }
+
+  private static void forEachLow(long container, IntConsumer consumer) {
+    switch (type(container)) {
+      case ARRAY: {
+        int cardinality = cardinality(container);
+        for (int i = 0; i < cardinality; i++) {
+          consumer.accept(arrayValue(container, i));
+        }
+        break;
+      }
+      case BITMAP:
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+          long word = MEMORY.readLong(container + HEADER_BYTES + (long) w * Long.BYTES);
+          while (word != 0) {
+            consumer.accept((w << 6) + Long.numberOfTrailingZeros(word));
+            word &= word - 1;
+          }
+        }
+        break;
+      default: {
+        int runs = capacityUsed(container);
+        for (int r = 0; r < runs; r++) {
+          for (int low = runStart(container, r), end = runEnd(container, r); low <= end; low++) {
+            consumer.accept(low);
+          }
+        }
+      }
+    }
+  }
+
+  // ascending int order
+  @Override
+  public void forEach(IntConsumer consumer) {
+    for (int i = 0; i < _count; i++) {
+      long container = container(i);
+      int base = keyBase(highAt(i));
+      switch (type(container)) {
+        case ARRAY: {
+          int cardinality = cardinality(container);
+          for (int j = 0; j < cardinality; j++) {
+            consumer.accept(base | arrayValue(container, j));
+          }
+          break;
+        }
+        case BITMAP:
+          for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = MEMORY.readLong(container + HEADER_BYTES + (long) w * Long.BYTES);
+            while (word != 0) {
+              consumer.accept(base | ((w << 6) + Long.numberOfTrailingZeros(word)));
+              word &= word - 1;
+            }
+          }
+          break;
+        default: {
+          int runs = capacityUsed(container);
+          for (int r = 0; r < runs; r++) {
+            for (int low = runStart(container, r), end = runEnd(container, r); low <= end; low++) {
+              consumer.accept(base | low);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  // keys are written one at a time into _scratch, native byte order as elsewhere
+  @Override
+  public void forEachBytes(BytesConsumer consumer) {
+    forEach(key -> {
+      MEMORY.writeInt(_scratch, OffHeapVarKeySet.BYTE_ARRAY_BASE, key);
+      consumer.accept(_scratch, OffHeapVarKeySet.BYTE_ARRAY_BASE, Integer.BYTES);
+    });
+  }
+
+  @Override
+  public long importKeys(ByteBuffer block, Class<Integer> keyClass) {
+    if (KeyBlock.width(block) != Integer.BYTES) {
+      return IntSetBackend.super.importKeys(block, keyClass);
+    }
+    int count = KeyBlock.count(block);
+    Object base = KeyBlock.base(block);
+    long data = KeyBlock.address(block) + KeyBlock.dataOffset(block);
+    long added = 0;
+    for (int i = 0; i < count; i++) {
+      if (add(MEMORY.readInt(base, data + (long) i * Integer.BYTES))) {
+        added++;
+      }
+    }
+    return added;
+  }
+
+  // smallest low value at or after from in the container, -1 if none
+  private static int nextLow(long container, int from) {
+    switch (type(container)) {
+      case ARRAY: {
+        int position = arraySearch(container, from);
+        if (position < 0) {
+          position = -position - 1;
+        }
+        return position < cardinality(container) ? arrayValue(container, position) : -1;
+      }
+      case BITMAP:
+        for (int w = from >>> 6; w < BITMAP_WORDS; w++) {
+          long word = MEMORY.readLong(container + HEADER_BYTES + (long) w * Long.BYTES);
+          if (w == from >>> 6) {
+            word &= -1L << from;
+          }
+          if (word != 0) {
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+          }
+        }
+        return -1;
+      default: {
+        int run = runSearch(container, from);
+        if (run >= 0 && from <= runEnd(container, run)) {
+          return from;
+        }
+        return run + 1 < capacityUsed(container) ? runStart(container, run + 1) : -1;
+      }
+    }
+  }
+
+  @Override
+  public boolean add(Integer key) {
+    return add(key.intValue());
+  }
+
+  @Override
+  public boolean contains(Integer key) {
+    return contains(key.intValue());
+  }
+
+  // ascending int order, boxing every key, see forEach
+  @Override
+  public Iterator<Integer> iterator() {
+    return new Iterator<Integer>() {
+      private int _index;
+      private int _low = advance(0);
+
+      // finds the next key from _low in container _index onwards
+      private int advance(int from) {
+        while (_index < _count) {
+          int low = from < CONTAINER_VALUES ? nextLow(container(_index), from) : -1;
+          if (low >= 0) {
+            return low;
+          }
+          _index++;
+          from = 0;
+        }
+        return -1;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return _low >= 0;
+      }
+
+      @Override
+      public Integer next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int key = keyBase(highAt(_index)) | _low;
+        _low = advance(_low + 1);
+        return key;
+      }
+    };
+  }
+
+  @Override
+  public long size() {
+    return _size;
+  }
+
+  @Override
+  public long memoryUsed() {
+    long bytes = (long) _directoryCapacity * (Integer.BYTES + Long.BYTES);
+    for (int i = 0; i < _count; i++) {
+      bytes += containerBytes(container(i));
+    }
+    return bytes;
+  }
+
+  @Override
+  public void close() {
+    if (_highs != 0) {
+      for (int i = 0; i < _count; i++) {
+        freeContainer(container(i));
+      }
+      freeDirectory();
+      _highs = 0;
+      _count = 0;
+    }
+  }
+}
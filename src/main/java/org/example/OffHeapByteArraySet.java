@@ -0,0 +1,33 @@
+package org.example;
+
+/*
+  OffHeapVarKeySet of byte[] keys, keys are copied into the arena as they are
+  Blocks go through OffHeapVarKeySet.addAll without a byte[] per key.
+ */
+public class OffHeapByteArraySet extends OffHeapVarKeySet<byte[]> implements ByteArraySetBackend {
+
+  public OffHeapByteArraySet(long expectedEntries) {
+    super(expectedEntries);
+  }
+
+  public OffHeapByteArraySet(long expectedEntries, MemoryReservation reservation) {
+    super(expectedEntries, reservation);
+  }
+
+  @Override
+  public boolean add(byte[] key) {
+    return addBytes(key, 0, key.length);
+  }
+
+  @Override
+  public boolean contains(byte[] key) {
+    return containsBytes(key, 0, key.length);
+  }
+
+  @Override
+  protected byte[] decode(long address, int length) {
+    byte[] key = new byte[length];
+    MEMORY.copyMemory(address, key, BYTE_ARRAY_BASE, length);
+    return key;
+  }
+}
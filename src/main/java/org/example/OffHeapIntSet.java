@@ -0,0 +1,369 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.OS;
+
+/*
+  Open addressing hash set of int keys in native memory
+  Slots are a power of two sized int array probed linearly. 0 marks an empty slot,
+  so the key 0 itself is tracked with a flag. The table doubles once it is
+  MAX_LOAD full, so no upper bound on entries is needed up front.
+ */
+public class OffHeapIntSet implements IntSetBackend {
+  private static final Memory MEMORY = OS.memory();
+  private static final int MIN_CAPACITY = 16;
+  private static final float MAX_LOAD = 0.7f;
+  private static final int EMPTY = 0;
+  private static final int BATCH = 64; // block keys hashed ahead of probing, see addAll
+  private static final byte[] ZERO_KEY = new byte[Integer.BYTES];
+
+  private long _address;
+  private int _capacity; // number of slots, always a power of two
+  private int _mask;
+  private int _size;     // keys stored in slots, excludes the zero key
+  private int _resizeAt;
+  private boolean _hasZero;
+
+  private final int[] _batchSlots = new int[BATCH];
+  private int _touched; // keeps the slot loads of addAll from being optimised away
+  private long[] _blockBitmap = new long[0];
+  private final MemoryReservation _reservation;
+
+  public OffHeapIntSet(long expectedEntries) {
+    this(expectedEntries, MemoryReservation.UNLIMITED);
+  }
+
+  // the table is reserved from reservation before it is allocated or doubled
+  public OffHeapIntSet(long expectedEntries, MemoryReservation reservation) {
+    _reservation = reservation;
+    allocate(capacityFor(expectedEntries));
+  }
+
+  static int capacityFor(long expectedEntries) {
+    long needed = (long) Math.ceil(expectedEntries / (double) MAX_LOAD);
+    long capacity = MIN_CAPACITY;
+    while (capacity < needed) {
+      capacity <<= 1;
+    }
+    if (capacity > (1 << 30)) {
+      throw new IllegalArgumentException("Too many entries for OffHeapIntSet: " + expectedEntries);
+    }
+    return (int) capacity;
+  }
+
+  static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private void allocate(int capacity) {
+    long bytes = (long) capacity * Integer.BYTES;
+    _reservation.reserve(bytes);
+    _address = MEMORY.allocate(bytes);
+    MEMORY.setMemory(_address, bytes, (byte) 0);
+    _capacity = capacity;
+    _mask = capacity - 1;
+    _resizeAt = (int) (capacity * MAX_LOAD);
+  }
+
+  private long slot(int index) {
+    return _address + ((long) index << 2);
+  }
+
+  // probes from index, inserts without the resize check
+  private boolean insert(int key, int index) {
+    if (key == EMPTY) {
+      boolean added = !_hasZero;
+      _hasZero = true;
+      return added;
+    }
+    int current;
+    while ((current = MEMORY.readInt(slot(index))) != EMPTY) {
+      if (current == key) {
+        return false;
+      }
+      index = (index + 1) & _mask;
+    }
+    MEMORY.writeInt(slot(index), key);
+    _size++;
+    return true;
+  }
+
+  // grows before a new key goes in, so when the growth cannot be reserved the set is unchanged
+  @Override
+  public boolean add(int key) {
+    if (_size >= _resizeAt && !contains(key)) {
+      rehash(_capacity << 1);
+    }
+    return insert(key, hash(key) & _mask);
+  }
+
+  /*
+    Each batch is hashed and its home slots loaded first, so the cache misses of a
+    batch overlap instead of each probe waiting on its own, then probed. Batches end
+    before the table would need to grow, so the hashed slots stay valid, and the key
+    that reaches the limit goes through add().
+   */
+  @Override
+  public int addAll(int[] values, int length) {
+    int added = 0;
+    int touched = 0;
+    for (int start = 0; start < length; ) {
+      if (_size >= _resizeAt) {
+        if (add(values[start++])) {
+          added++;
+        }
+        continue;
+      }
+      int batch = Math.min(BATCH, Math.min(length - start, _resizeAt - _size));
+      for (int i = 0; i < batch; i++) {
+        int index = hash(values[start + i]) & _mask;
+        _batchSlots[i] = index;
+        touched += MEMORY.readInt(slot(index));
+      }
+      for (int i = 0; i < batch; i++) {
+        if (insert(values[start + i], _batchSlots[i])) {
+          added++;
+        }
+      }
+      start += batch;
+    }
+    _touched = touched;
+    return added;
+  }
+
+  @Override
+  public boolean contains(int key) {
+    if (key == EMPTY) {
+      return _hasZero;
+    }
+    return probe(key, hash(key) & _mask);
+  }
+
+  // batches are one bitmap word, 64 keys, hashed and loaded ahead of probing as in addAll
+  @Override
+  public int containsBlock(int[] keys, int length, long[] bitmap) {
+    int matches = 0;
+    int touched = 0;
+    for (int start = 0; start < length; start += Long.SIZE) {
+      int batch = Math.min(Long.SIZE, length - start);
+      for (int i = 0; i < batch; i++) {
+        int index = hash(keys[start + i]) & _mask;
+        _batchSlots[i] = index;
+        touched += MEMORY.readInt(slot(index));
+      }
+      long word = 0;
+      for (int i = 0; i < batch; i++) {
+        int key = keys[start + i];
+        if (key == EMPTY ? _hasZero : probe(key, _batchSlots[i])) {
+          word |= 1L << i;
+          matches++;
+        }
+      }
+      bitmap[start >>> 6] = word;
+    }
+    _touched = touched;
+    return matches;
+  }
+
+  @Override
+  public int containsBlock(int[] keys, int length, int[] matches) {
+    if (_blockBitmap.length < Bitmaps.words(length)) {
+      _blockBitmap = new long[Bitmaps.words(length)];
+    }
+    containsBlock(keys, length, _blockBitmap);
+    return Bitmaps.toIndexes(_blockBitmap, length, matches);
+  }
+
+  /*
+    Backward shift deletion: the keys after the removed one in its probe run move
+    back into the hole when their home slot allows it, so removes leave no
+    tombstones and later probes stay as short as if the key was never added.
+   */
+  public boolean remove(int key) {
+    if (key == EMPTY) {
+      boolean removed = _hasZero;
+      _hasZero = false;
+      return removed;
+    }
+    int hole = hash(key) & _mask;
+    int current;
+    while ((current = MEMORY.readInt(slot(hole))) != key) {
+      if (current == EMPTY) {
+        return false;
+      }
+      hole = (hole + 1) & _mask;
+    }
+    for (int next = (hole + 1) & _mask; (current = MEMORY.readInt(slot(next))) != EMPTY; next = (next + 1) & _mask) {
+      // current may move to hole unless its home slot lies after hole in the run
+      if (((next - (hash(current) & _mask)) & _mask) >= ((next - hole) & _mask)) {
+        MEMORY.writeInt(slot(hole), current);
+        hole = next;
+      }
+    }
+    MEMORY.writeInt(slot(hole), EMPTY);
+    _size--;
+    return true;
+  }
+
+  private boolean probe(int key, int index) {
+    int current;
+    while ((current = MEMORY.readInt(slot(index))) != EMPTY) {
+      if (current == key) {
+        return true;
+      }
+      index = (index + 1) & _mask;
+    }
+    return false;
+  }
+
+  private void rehash(int newCapacity) {
+    long oldAddress = _address;
+    int oldCapacity = _capacity;
+    allocate(newCapacity);
+    for (int i = 0; i < oldCapacity; i++) {
+      int key = MEMORY.readInt(oldAddress + ((long) i << 2));
+      if (key != EMPTY) {
+        int index = hash(key) & _mask;
+        while (MEMORY.readInt(slot(index)) != EMPTY) {
+          index = (index + 1) & _mask;
+        }
+        MEMORY.writeInt(slot(index), key);
+      }
+    }
+    MEMORY.freeMemory(oldAddress, (long) oldCapacity * Integer.BYTES);
+    _reservation.release((long) oldCapacity * Integer.BYTES);
+  }
+
+  @Override
+  public void forEach(IntConsumer consumer) {
+    if (_hasZero) {
+      consumer.accept(EMPTY);
+    }
+    for (int i = 0; i < _capacity; i++) {
+      int key = MEMORY.readInt(slot(i));
+      if (key != EMPTY) {
+        consumer.accept(key);
+      }
+    }
+  }
+
+  // keys are handed over in their slots, the zero key from ZERO_KEY
+  @Override
+  public void forEachBytes(BytesConsumer consumer) {
+    if (_hasZero) {
+      consumer.accept(ZERO_KEY, OffHeapVarKeySet.BYTE_ARRAY_BASE, Integer.BYTES);
+    }
+    for (int i = 0; i < _capacity; i++) {
+      long slot = slot(i);
+      if (MEMORY.readInt(slot) != EMPTY) {
+        consumer.accept(null, slot, Integer.BYTES);
+      }
+    }
+  }
+
+  // the keys of the slots back to back, zero key first
+  @Override
+  public ByteBuffer exportKeys() {
+    ByteBuffer block = KeyBlock.allocate(Integer.BYTES, size(), size() * Integer.BYTES);
+    long out = Jvm.address(block) + KeyBlock.dataOffset(block);
+    if (_hasZero) {
+      MEMORY.writeInt(out, EMPTY);
+      out += Integer.BYTES;
+    }
+    for (int i = 0; i < _capacity; i++) {
+      int key = MEMORY.readInt(slot(i));
+      if (key != EMPTY) {
+        MEMORY.writeInt(out, key);
+        out += Integer.BYTES;
+      }
+    }
+    return block;
+  }
+
+  // grows once for the whole block, then inserts the keys straight from it
+  @Override
+  public long importKeys(ByteBuffer block, Class<Integer> keyClass) {
+    if (KeyBlock.width(block) != Integer.BYTES) {
+      return IntSetBackend.super.importKeys(block, keyClass);
+    }
+    int count = KeyBlock.count(block);
+    int capacity = capacityFor((long) _size + count);
+    if (capacity > _capacity) {
+      rehash(capacity);
+    }
+    Object base = KeyBlock.base(block);
+    long data = KeyBlock.address(block) + KeyBlock.dataOffset(block);
+    long added = 0;
+    for (int i = 0; i < count; i++) {
+      int key = MEMORY.readInt(base, data + (long) i * Integer.BYTES);
+      if (insert(key, hash(key) & _mask)) {
+        added++;
+      }
+    }
+    return added;
+  }
+
+  @Override
+  public boolean add(Integer key) {
+    return add(key.intValue());
+  }
+
+  @Override
+  public boolean contains(Integer key) {
+    return contains(key.intValue());
+  }
+
+  @Override
+  public Iterator<Integer> iterator() {
+    return new Iterator<Integer>() {
+      private int _index = _hasZero ? -1 : advance(0);
+
+      private int advance(int from) {
+        while (from < _capacity && MEMORY.readInt(slot(from)) == EMPTY) {
+          from++;
+        }
+        return from;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return _index < _capacity;
+      }
+
+      @Override
+      public Integer next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int key = _index < 0 ? EMPTY : MEMORY.readInt(slot(_index));
+        _index = advance(_index + 1);
+        return key;
+      }
+    };
+  }
+
+  @Override
+  public long size() {
+    return _hasZero ? _size + 1 : _size;
+  }
+
+  @Override
+  public long memoryUsed() {
+    return (long) _capacity * Integer.BYTES;
+  }
+
+  @Override
+  public void close() {
+    if (_address != 0) {
+      MEMORY.freeMemory(_address, (long) _capacity * Integer.BYTES);
+      _reservation.release((long) _capacity * Integer.BYTES);
+      _address = 0;
+    }
+  }
+}
@@ -0,0 +1,195 @@
+package org.example;
+
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.OS;
+
+/*
+  JoinTable in native memory: open addressing over the keys, row ids in an
+  append-only payload area chained per key
+  Keys are RecordCodec rows indexed by an OffHeapKeyTable whose slots carry the
+  ends of the key's rows:
+    [int hash][int length + 1][long key][long head][long tail]
+  A key with a single row, every key of a unique build side, keeps its row id in
+  head and ROW_IN_SLOT in tail. Its second row moves both into a block appended to
+  the payload area,
+    [long next][int capacity][int used][capacity x long rowId]
+  and head and tail become the payload offsets of the key's first and last block.
+  Once the tail block is full the next one is appended with twice its capacity, up
+  to MAX_BLOCK_ROWS, and linked from it: rows are only ever appended, and a probe
+  copies each block into the caller's buffer in one go instead of chasing a
+  pointer per row. No key or row id becomes a java object.
+  The index doubles once it is MAX_LOAD full and the payload area once it is full,
+  so the constructor sizes are only hints.
+ */
+public class OffHeapJoinTable implements JoinTable {
+  private static final Memory MEMORY = OS.memory();
+  private static final long LONG_ARRAY_BASE = MEMORY.arrayBaseOffset(long[].class);
+  private static final int HEAD = 0; // within the slot payload
+  private static final int TAIL = 8;
+  private static final long ROW_IN_SLOT = -1; // tail of a key whose only row id is its head
+  private static final long END = -1; // next of the last block of a chain
+  private static final int CAPACITY = 8;
+  private static final int USED = 12;
+  private static final int BLOCK_HEADER = 16;
+  private static final int FIRST_BLOCK_ROWS = 2;
+  private static final int MAX_BLOCK_ROWS = 1024;
+  private static final long MIN_PAYLOAD_BYTES = 1 << 16;
+
+  private final RecordCodec _codec;
+  private final OffHeapKeyTable _table;
+
+  private long _payload;
+  private long _payloadCapacity;
+  private long _payloadUsed;
+  private long _rows;
+
+  private byte[] _scratch = new byte[256];
+
+  public OffHeapJoinTable(RecordCodec codec, long expectedKeys, long expectedRows) {
+    _codec = codec;
+    _table = new OffHeapKeyTable(expectedKeys, 2 * Long.BYTES);
+    // rows beyond one per key go to blocks, which are on average 3/4 full
+    long blockRows = Math.max(0, expectedRows - expectedKeys);
+    _payloadCapacity = Math.max(MIN_PAYLOAD_BYTES, blockRows * Long.BYTES * 4 / 3);
+    _payload = MEMORY.allocate(_payloadCapacity);
+  }
+
+  // writes key into _scratch from index 0 and returns its length
+  private int encode(Record key) {
+    int maxSize = _codec.maxSize(key);
+    if (_scratch.length < maxSize) {
+      _scratch = new byte[maxSize];
+    }
+    return _codec.encode(key, _scratch, 0);
+  }
+
+  @Override
+  public void add(Record key, long rowId) {
+    int length = encode(key);
+    int hash = OffHeapVarKeySet.hash(_scratch, 0, length);
+    long slot = _table.find(hash, _scratch, length);
+    _rows++;
+    if (OffHeapKeyTable.keyLength(slot) >= 0) {
+      append(OffHeapKeyTable.payload(slot), rowId);
+      return;
+    }
+    long rows = OffHeapKeyTable.payload(_table.insert(slot, hash, _scratch, length));
+    MEMORY.writeLong(rows + HEAD, rowId);
+    MEMORY.writeLong(rows + TAIL, ROW_IN_SLOT);
+  }
+
+  // appends rowId to the rows of a key, whose head and tail are at rows
+  private void append(long rows, long rowId) {
+    long tail = MEMORY.readLong(rows + TAIL);
+    if (tail == ROW_IN_SLOT) {
+      long block = appendBlock(FIRST_BLOCK_ROWS);
+      long address = _payload + block;
+      MEMORY.writeLong(address + BLOCK_HEADER, MEMORY.readLong(rows + HEAD));
+      MEMORY.writeLong(address + BLOCK_HEADER + Long.BYTES, rowId);
+      MEMORY.writeInt(address + USED, 2);
+      MEMORY.writeLong(rows + HEAD, block);
+      MEMORY.writeLong(rows + TAIL, block);
+      return;
+    }
+    long address = _payload + tail;
+    int capacity = MEMORY.readInt(address + CAPACITY);
+    int used = MEMORY.readInt(address + USED);
+    if (used == capacity) {
+      long block = appendBlock(Math.min(capacity << 1, MAX_BLOCK_ROWS));
+      MEMORY.writeLong(_payload + tail, block); // the payload may have moved
+      MEMORY.writeLong(rows + TAIL, block);
+      address = _payload + block;
+      used = 0;
+    }
+    MEMORY.writeLong(address + BLOCK_HEADER + (long) used * Long.BYTES, rowId);
+    MEMORY.writeInt(address + USED, used + 1);
+  }
+
+  // payload offset of a new, empty block
+  private long appendBlock(int capacity) {
+    long bytes = BLOCK_HEADER + (long) capacity * Long.BYTES;
+    if (_payloadUsed + bytes > _payloadCapacity) {
+      growPayload(bytes);
+    }
+    long block = _payloadUsed;
+    _payloadUsed += bytes;
+    long address = _payload + block;
+    MEMORY.writeLong(address, END);
+    MEMORY.writeInt(address + CAPACITY, capacity);
+    MEMORY.writeInt(address + USED, 0);
+    return block;
+  }
+
+  @Override
+  public long probe(Record key, long[] rowIds, MatchConsumer consumer) {
+    int length = encode(key);
+    long slot = _table.find(OffHeapVarKeySet.hash(_scratch, 0, length), _scratch, length);
+    if (OffHeapKeyTable.keyLength(slot) < 0) {
+      return 0;
+    }
+    long rows = OffHeapKeyTable.payload(slot);
+    if (MEMORY.readLong(rows + TAIL) == ROW_IN_SLOT) {
+      rowIds[0] = MEMORY.readLong(rows + HEAD);
+      consumer.accept(rowIds, 1);
+      return 1;
+    }
+    long matches = 0;
+    int count = 0;
+    for (long block = MEMORY.readLong(rows + HEAD); block != END; block = MEMORY.readLong(_payload + block)) {
+      long address = _payload + block;
+      int used = MEMORY.readInt(address + USED);
+      for (int copied = 0; copied < used; ) {
+        int n = Math.min(used - copied, rowIds.length - count);
+        MEMORY.copyMemory(address + BLOCK_HEADER + (long) copied * Long.BYTES, rowIds,
+            LONG_ARRAY_BASE + (long) count * Long.BYTES, n * Long.BYTES);
+        copied += n;
+        count += n;
+        if (count == rowIds.length) {
+          consumer.accept(rowIds, count);
+          matches += count;
+          count = 0;
+        }
+      }
+    }
+    if (count > 0) {
+      consumer.accept(rowIds, count);
+    }
+    return matches + count;
+  }
+
+  private void growPayload(long bytes) {
+    long newCapacity = _payloadCapacity << 1;
+    while (newCapacity < _payloadUsed + bytes) {
+      newCapacity <<= 1;
+    }
+    long newPayload = MEMORY.allocate(newCapacity);
+    MEMORY.copyMemory(_payload, newPayload, _payloadUsed);
+    MEMORY.freeMemory(_payload, _payloadCapacity);
+    _payload = newPayload;
+    _payloadCapacity = newCapacity;
+  }
+
+  @Override
+  public long size() {
+    return _table.size();
+  }
+
+  @Override
+  public long rows() {
+    return _rows;
+  }
+
+  @Override
+  public long memoryUsed() {
+    return _table.memoryUsed() + _payloadCapacity;
+  }
+
+  @Override
+  public void close() {
+    _table.close();
+    if (_payload != 0) {
+      MEMORY.freeMemory(_payload, _payloadCapacity);
+      _payload = 0;
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package org.example;
+
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.OS;
+
+/*
+  Open addressing index of byte keys in native memory, shared by the off-heap
+  AggregationMap and JoinTable, which keep their own payload bytes in each slot
+  Each key has one slot, probed linearly:
+    [int hash][int length + 1][long key][payloadBytes of payload]
+  A length of 0 marks an empty slot. Keys of up to 8 bytes are stored in the key
+  field itself, longer ones are appended to a growable arena and the key field holds
+  their arena offset. A lookup compares hash and length, then the key bytes in place.
+  The index doubles before the key that would make it more than MAX_LOAD full goes
+  in, and slots move whole, so the payload of a slot is only valid until the next
+  insert.
+ */
+final class OffHeapKeyTable {
+  private static final Memory MEMORY = OS.memory();
+  private static final long BYTE_ARRAY_BASE = MEMORY.arrayBaseOffset(byte[].class);
+  private static final int KEY = 8;
+  private static final int PAYLOAD = 16;
+  private static final int MAX_INLINE_KEY = Long.BYTES;
+  private static final float MAX_LOAD = 0.7f;
+  private static final long MIN_ARENA_BYTES = 1 << 16;
+
+  private final int _slotBytes;
+
+  private long _index;
+  private int _capacity; // number of slots, always a power of two
+  private int _mask;
+  private int _size;
+  private int _resizeAt;
+
+  private long _arena;
+  private long _arenaCapacity;
+  private long _arenaUsed;
+
+  OffHeapKeyTable(long expectedKeys, int payloadBytes) {
+    _slotBytes = PAYLOAD + payloadBytes;
+    allocateIndex(OffHeapIntSet.capacityFor(expectedKeys));
+  }
+
+  private void allocateIndex(int capacity) {
+    long bytes = (long) capacity * _slotBytes;
+    _index = MEMORY.allocate(bytes);
+    MEMORY.setMemory(_index, bytes, (byte) 0);
+    _capacity = capacity;
+    _mask = capacity - 1;
+    _resizeAt = (int) (capacity * MAX_LOAD);
+  }
+
+  int capacity() {
+    return _capacity;
+  }
+
+  int size() {
+    return _size;
+  }
+
+  long slot(int index) {
+    return _index + (long) index * _slotBytes;
+  }
+
+  // length of the key in slot, -1 for an empty slot
+  static int keyLength(long slot) {
+    return MEMORY.readInt(slot + 4) - 1;
+  }
+
+  static long payload(long slot) {
+    return slot + PAYLOAD;
+  }
+
+  // where the key bytes of an occupied slot are
+  long keyAddress(long slot, int length) {
+    return length <= MAX_INLINE_KEY ? slot + KEY : _arena + MEMORY.readLong(slot + KEY);
+  }
+
+  private static boolean equalsStored(long address, byte[] key, int length) {
+    int i = 0;
+    for (; i + Long.BYTES <= length; i += Long.BYTES) {
+      if (MEMORY.readLong(address + i) != MEMORY.readLong(key, BYTE_ARRAY_BASE + i)) {
+        return false;
+      }
+    }
+    for (; i < length; i++) {
+      if (MEMORY.readByte(address + i) != MEMORY.readByte(key, BYTE_ARRAY_BASE + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // slot holding the first length bytes of key, or the empty slot where they would be inserted
+  long find(int hash, byte[] key, int length) {
+    int index = hash & _mask;
+    long slot;
+    int storedLength;
+    while ((storedLength = MEMORY.readInt((slot = slot(index)) + 4)) != 0) {
+      if (storedLength == length + 1 && MEMORY.readInt(slot) == hash
+          && equalsStored(keyAddress(slot, length), key, length)) {
+        return slot;
+      }
+      index = (index + 1) & _mask;
+    }
+    return slot;
+  }
+
+  /*
+    Stores the key into the empty slot find() returned for it and returns the slot it
+    ended up in, which differs when the index had to grow first. The caller writes
+    the payload.
+   */
+  long insert(long slot, int hash, byte[] key, int length) {
+    if (_size >= _resizeAt) {
+      rehash(_capacity << 1);
+      slot = find(hash, key, length);
+    }
+    if (length <= MAX_INLINE_KEY) {
+      MEMORY.copyMemory(key, BYTE_ARRAY_BASE, slot + KEY, length);
+    } else {
+      ensureArena(length);
+      MEMORY.copyMemory(key, BYTE_ARRAY_BASE, _arena + _arenaUsed, length);
+      MEMORY.writeLong(slot + KEY, _arenaUsed);
+      _arenaUsed += length;
+    }
+    MEMORY.writeInt(slot, hash);
+    MEMORY.writeInt(slot + 4, length + 1);
+    _size++;
+    return slot;
+  }
+
+  private void ensureArena(int length) {
+    if (_arenaUsed + length <= _arenaCapacity) {
+      return;
+    }
+    long newCapacity = Math.max(MIN_ARENA_BYTES, _arenaCapacity);
+    while (newCapacity < _arenaUsed + length) {
+      newCapacity <<= 1;
+    }
+    long newArena = MEMORY.allocate(newCapacity);
+    if (_arena != 0) {
+      MEMORY.copyMemory(_arena, newArena, _arenaUsed);
+      MEMORY.freeMemory(_arena, _arenaCapacity);
+    }
+    _arena = newArena;
+    _arenaCapacity = newCapacity;
+  }
+
+  // slots move whole, with their stored hash, inline key and payload
+  private void rehash(int newCapacity) {
+    long oldIndex = _index;
+    int oldCapacity = _capacity;
+    allocateIndex(newCapacity);
+    for (int i = 0; i < oldCapacity; i++) {
+      long oldSlot = oldIndex + (long) i * _slotBytes;
+      if (MEMORY.readInt(oldSlot + 4) != 0) {
+        int index = MEMORY.readInt(oldSlot) & _mask;
+        while (MEMORY.readInt(slot(index) + 4) != 0) {
+          index = (index + 1) & _mask;
+        }
+        MEMORY.copyMemory(oldSlot, slot(index), _slotBytes);
+      }
+    }
+    MEMORY.freeMemory(oldIndex, (long) oldCapacity * _slotBytes);
+  }
+
+  long memoryUsed() {
+    return (long) _capacity * _slotBytes + _arenaCapacity;
+  }
+
+  void close() {
+    if (_index != 0) {
+      MEMORY.freeMemory(_index, (long) _capacity * _slotBytes);
+      _index = 0;
+    }
+    if (_arena != 0) {
+      MEMORY.freeMemory(_arena, _arenaCapacity);
+      _arena = 0;
+    }
+  }
+}
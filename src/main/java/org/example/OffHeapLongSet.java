@@ -0,0 +1,206 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.OS;
+
+/*
+  Open addressing hash set of long keys in native memory, same layout as
+  OffHeapIntSet with 8 byte slots
+ */
+public class OffHeapLongSet implements SetBackend<Long> {
+  private static final Memory MEMORY = OS.memory();
+  private static final float MAX_LOAD = 0.7f;
+  private static final long EMPTY = 0L;
+  private static final byte[] ZERO_KEY = new byte[Long.BYTES];
+
+  private long _address;
+  private int _capacity; // number of slots, always a power of two
+  private int _mask;
+  private int _size;     // keys stored in slots, excludes the zero key
+  private int _resizeAt;
+  private boolean _hasZero;
+  private final MemoryReservation _reservation;
+
+  public OffHeapLongSet(long expectedEntries) {
+    this(expectedEntries, MemoryReservation.UNLIMITED);
+  }
+
+  public OffHeapLongSet(long expectedEntries, MemoryReservation reservation) {
+    _reservation = reservation;
+    allocate(OffHeapIntSet.capacityFor(expectedEntries));
+  }
+
+  static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private void allocate(int capacity) {
+    long bytes = (long) capacity * Long.BYTES;
+    _reservation.reserve(bytes);
+    _address = MEMORY.allocate(bytes);
+    MEMORY.setMemory(_address, bytes, (byte) 0);
+    _capacity = capacity;
+    _mask = capacity - 1;
+    _resizeAt = (int) (capacity * MAX_LOAD);
+  }
+
+  private long slot(int index) {
+    return _address + ((long) index << 3);
+  }
+
+  public boolean add(long key) {
+    if (key == EMPTY) {
+      boolean added = !_hasZero;
+      _hasZero = true;
+      return added;
+    }
+    int index = hash(key) & _mask;
+    long current;
+    while ((current = MEMORY.readLong(slot(index))) != EMPTY) {
+      if (current == key) {
+        return false;
+      }
+      index = (index + 1) & _mask;
+    }
+    if (_size >= _resizeAt) {
+      // grow before the key goes in, so when the growth cannot be reserved the set is unchanged
+      rehash(_capacity << 1);
+      return add(key);
+    }
+    MEMORY.writeLong(slot(index), key);
+    _size++;
+    return true;
+  }
+
+  public boolean contains(long key) {
+    if (key == EMPTY) {
+      return _hasZero;
+    }
+    int index = hash(key) & _mask;
+    long current;
+    while ((current = MEMORY.readLong(slot(index))) != EMPTY) {
+      if (current == key) {
+        return true;
+      }
+      index = (index + 1) & _mask;
+    }
+    return false;
+  }
+
+  // long keys are 8 bytes in native byte order
+  @Override
+  public boolean containsKeyBytes(Object base, long offset, int length, Class<Long> keyClass) {
+    return contains(MEMORY.readLong(base, offset));
+  }
+
+  @Override
+  public boolean addKeyBytes(Object base, long offset, int length, Class<Long> keyClass) {
+    return add(MEMORY.readLong(base, offset));
+  }
+
+  private void rehash(int newCapacity) {
+    long oldAddress = _address;
+    int oldCapacity = _capacity;
+    allocate(newCapacity);
+    for (int i = 0; i < oldCapacity; i++) {
+      long key = MEMORY.readLong(oldAddress + ((long) i << 3));
+      if (key != EMPTY) {
+        int index = hash(key) & _mask;
+        while (MEMORY.readLong(slot(index)) != EMPTY) {
+          index = (index + 1) & _mask;
+        }
+        MEMORY.writeLong(slot(index), key);
+      }
+    }
+    MEMORY.freeMemory(oldAddress, (long) oldCapacity * Long.BYTES);
+    _reservation.release((long) oldCapacity * Long.BYTES);
+  }
+
+  public void forEach(LongConsumer consumer) {
+    if (_hasZero) {
+      consumer.accept(EMPTY);
+    }
+    for (int i = 0; i < _capacity; i++) {
+      long key = MEMORY.readLong(slot(i));
+      if (key != EMPTY) {
+        consumer.accept(key);
+      }
+    }
+  }
+
+  // keys are handed over in their slots, the zero key from ZERO_KEY
+  @Override
+  public void forEachBytes(BytesConsumer consumer) {
+    if (_hasZero) {
+      consumer.accept(ZERO_KEY, OffHeapVarKeySet.BYTE_ARRAY_BASE, Long.BYTES);
+    }
+    for (int i = 0; i < _capacity; i++) {
+      long slot = slot(i);
+      if (MEMORY.readLong(slot) != EMPTY) {
+        consumer.accept(null, slot, Long.BYTES);
+      }
+    }
+  }
+
+  @Override
+  public boolean add(Long key) {
+    return add(key.longValue());
+  }
+
+  @Override
+  public boolean contains(Long key) {
+    return contains(key.longValue());
+  }
+
+  @Override
+  public Iterator<Long> iterator() {
+    return new Iterator<Long>() {
+      private int _index = _hasZero ? -1 : advance(0);
+
+      private int advance(int from) {
+        while (from < _capacity && MEMORY.readLong(slot(from)) == EMPTY) {
+          from++;
+        }
+        return from;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return _index < _capacity;
+      }
+
+      @Override
+      public Long next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        long key = _index < 0 ? EMPTY : MEMORY.readLong(slot(_index));
+        _index = advance(_index + 1);
+        return key;
+      }
+    };
+  }
+
+  @Override
+  public long size() {
+    return _hasZero ? _size + 1 : _size;
+  }
+
+  @Override
+  public long memoryUsed() {
+    return (long) _capacity * Long.BYTES;
+  }
+
+  @Override
+  public void close() {
+    if (_address != 0) {
+      MEMORY.freeMemory(_address, (long) _capacity * Long.BYTES);
+      _reservation.release((long) _capacity * Long.BYTES);
+      _address = 0;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+/*
+  OffHeapVarKeySet of Record keys stored in the RecordCodec row layout
+ */
+public class OffHeapRecordSet extends OffHeapVarKeySet<Record> {
+  private final RecordCodec _codec;
+  private byte[] _scratch = new byte[256];
+
+  public OffHeapRecordSet(RecordCodec codec, long expectedEntries) {
+    this(codec, expectedEntries, MemoryReservation.UNLIMITED);
+  }
+
+  public OffHeapRecordSet(RecordCodec codec, long expectedEntries, MemoryReservation reservation) {
+    super(expectedEntries, reservation);
+    _codec = codec;
+  }
+
+  // encodes record into _scratch and returns the row length
+  private int encode(Record record) {
+    int maxSize = _codec.maxSize(record);
+    if (_scratch.length < maxSize) {
+      _scratch = new byte[maxSize];
+    }
+    return _codec.encode(record, _scratch, 0);
+  }
+
+  @Override
+  public boolean add(Record key) {
+    int length = encode(key);
+    return addBytes(_scratch, 0, length);
+  }
+
+  @Override
+  public boolean contains(Record key) {
+    int length = encode(key);
+    return containsBytes(_scratch, 0, length);
+  }
+
+  @Override
+  protected Record decode(long address, int length) {
+    byte[] row = new byte[length];
+    MEMORY.copyMemory(address, row, BYTE_ARRAY_BASE, length);
+    return _codec.decode(row, 0);
+  }
+}
@@ -0,0 +1,83 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+  OffHeapVarKeySet of String keys stored as UTF-8
+  Keys are encoded into a reusable scratch buffer, so add and contains do not
+  allocate once the buffer has grown to the longest key seen.
+ */
+public class OffHeapStringSet extends OffHeapVarKeySet<String> {
+  private byte[] _scratch = new byte[256];
+  private long[] _blockBitmap = new long[0];
+
+  public OffHeapStringSet(long expectedEntries) {
+    super(expectedEntries);
+  }
+
+  public OffHeapStringSet(long expectedEntries, MemoryReservation reservation) {
+    super(expectedEntries, reservation);
+  }
+
+  // encodes key as UTF-8 into _scratch and returns the number of bytes written
+  private int encode(String key) {
+    if (_scratch.length < Utf8.maxEncodedLength(key)) {
+      _scratch = new byte[Utf8.maxEncodedLength(key)];
+    }
+    return Utf8.encode(key, _scratch, 0);
+  }
+
+  @Override
+  public boolean add(String key) {
+    int length = encode(key);
+    return addBytes(_scratch, 0, length);
+  }
+
+  @Override
+  public boolean contains(String key) {
+    int length = encode(key);
+    return containsBytes(_scratch, 0, length);
+  }
+
+  // encodes each word of the block into _scratch and probes it as a batch
+  @Override
+  public int containsBlock(String[] keys, int length, long[] bitmap) {
+    int matches = 0;
+    for (int start = 0; start < length; start += Long.SIZE) {
+      int batch = Math.min(Long.SIZE, length - start);
+      int bytes = 0;
+      for (int i = 0; i < batch; i++) {
+        bytes += Utf8.maxEncodedLength(keys[start + i]);
+      }
+      if (_scratch.length < bytes) {
+        _scratch = new byte[bytes];
+      }
+      int end = 0;
+      for (int i = 0; i < batch; i++) {
+        _batchFrom[i] = end;
+        end = Utf8.encode(keys[start + i], _scratch, end);
+        _batchLength[i] = end - _batchFrom[i];
+      }
+      long word = containsBatch(_scratch, BYTE_ARRAY_BASE, batch);
+      bitmap[start >>> 6] = word;
+      matches += Long.bitCount(word);
+    }
+    return matches;
+  }
+
+  @Override
+  public int containsBlock(String[] keys, int length, int[] matches) {
+    if (_blockBitmap.length < Bitmaps.words(length)) {
+      _blockBitmap = new long[Bitmaps.words(length)];
+    }
+    containsBlock(keys, length, _blockBitmap);
+    return Bitmaps.toIndexes(_blockBitmap, length, matches);
+  }
+
+  @Override
+  protected String decode(long address, int length) {
+    byte[] bytes = new byte[length];
+    MEMORY.copyMemory(address, bytes, BYTE_ARRAY_BASE, length);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
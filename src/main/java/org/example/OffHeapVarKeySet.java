@@ -0,0 +1,477 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.OS;
+
+/*
+  Hash set of variable length keys in native memory
+  Key bytes are appended to a growable arena and an open addressing index keeps one
+  16 byte slot per key: [int hash][int length + 1][long arena offset]. A length of 0
+  marks an empty slot. Lookups compare the stored hash and length first and then the
+  key bytes in place, so stored keys are never turned back into java objects except
+  by iterator(). Nothing is sized from an average key, both the index and the arena
+  grow on demand.
+  Keys are addressed as (base, offset) pairs as for Unsafe: a byte[] and its array
+  offset, or null and a native address, so heap and direct buffers share one path.
+ */
+public abstract class OffHeapVarKeySet<K> implements SetBackend<K> {
+  protected static final Memory MEMORY = OS.memory();
+  protected static final long BYTE_ARRAY_BASE = MEMORY.arrayBaseOffset(byte[].class);
+  private static final int SLOT_BYTES = 16;
+  private static final float MAX_LOAD = 0.7f;
+  private static final long MIN_ARENA_BYTES = 1 << 16;
+  private static final int EXPECTED_KEY_BYTES = 16; // initial arena hint only, the arena grows as needed
+  private static final int BATCH = 256; // block keys hashed ahead of probing, see addAll
+
+  private long _index;
+  private int _capacity; // number of slots, always a power of two
+  private int _mask;
+  private int _size;
+  private int _resizeAt;
+
+  private long _arena;
+  private long _arenaCapacity;
+  private long _arenaUsed;
+
+  private final int[] _batchHashes = new int[BATCH];
+  protected final int[] _batchFrom = new int[Long.SIZE];   // key offsets and lengths of one containsBlock word
+  protected final int[] _batchLength = new int[Long.SIZE];
+  private int _touched; // keeps the slot loads of addAll from being optimised away
+  private final MemoryReservation _reservation;
+
+  public OffHeapVarKeySet(long expectedEntries) {
+    this(expectedEntries, MemoryReservation.UNLIMITED);
+  }
+
+  // index and arena are reserved from reservation before they are allocated or grown
+  public OffHeapVarKeySet(long expectedEntries, MemoryReservation reservation) {
+    _reservation = reservation;
+    _arenaCapacity = Math.max(MIN_ARENA_BYTES, expectedEntries * EXPECTED_KEY_BYTES);
+    _reservation.reserve(_arenaCapacity);
+    try {
+      allocateIndex(OffHeapIntSet.capacityFor(expectedEntries));
+    } catch (RuntimeException e) {
+      _reservation.release(_arenaCapacity);
+      throw e;
+    }
+    _arena = MEMORY.allocate(_arenaCapacity);
+  }
+
+  static int hash(byte[] bytes, int offset, int length) {
+    return hash(bytes, BYTE_ARRAY_BASE + offset, length);
+  }
+
+  static int hash(Object base, long offset, int length) {
+    long h = length * 0x9E3779B97F4A7C15L;
+    int i = 0;
+    for (; i + Long.BYTES <= length; i += Long.BYTES) {
+      h = (h ^ MEMORY.readLong(base, offset + i)) * 0x9E3779B97F4A7C15L;
+      h ^= h >>> 29;
+    }
+    for (; i < length; i++) {
+      h = (h ^ MEMORY.readByte(base, offset + i)) * 0x100000001B3L;
+    }
+    h ^= h >>> 32;
+    return (int) h;
+  }
+
+  private void allocateIndex(int capacity) {
+    long bytes = (long) capacity * SLOT_BYTES;
+    _reservation.reserve(bytes);
+    _index = MEMORY.allocate(bytes);
+    MEMORY.setMemory(_index, bytes, (byte) 0);
+    _capacity = capacity;
+    _mask = capacity - 1;
+    _resizeAt = (int) (capacity * MAX_LOAD);
+  }
+
+  private long slot(int index) {
+    return _index + (long) index * SLOT_BYTES;
+  }
+
+  // true when the key stored at arenaOffset equals the length bytes at (base, offset)
+  private boolean equalsStored(long arenaOffset, Object base, long offset, int length) {
+    long address = _arena + arenaOffset;
+    int i = 0;
+    for (; i + Long.BYTES <= length; i += Long.BYTES) {
+      if (MEMORY.readLong(address + i) != MEMORY.readLong(base, offset + i)) {
+        return false;
+      }
+    }
+    for (; i < length; i++) {
+      if (MEMORY.readByte(address + i) != MEMORY.readByte(base, offset + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // slot holding the key, or the empty slot where it would be inserted
+  private int find(int hash, Object base, long offset, int length) {
+    int index = hash & _mask;
+    int storedLength;
+    while ((storedLength = MEMORY.readInt(slot(index) + 4)) != 0) {
+      if (storedLength == length + 1 && MEMORY.readInt(slot(index)) == hash
+          && equalsStored(MEMORY.readLong(slot(index) + 8), base, offset, length)) {
+        return index;
+      }
+      index = (index + 1) & _mask;
+    }
+    return index;
+  }
+
+  // inserts without the resize check, callers grow first once _size reaches _resizeAt
+  private boolean insert(int hash, Object base, long offset, int length) {
+    long slot = slot(find(hash, base, offset, length));
+    if (MEMORY.readInt(slot + 4) != 0) {
+      return false;
+    }
+    ensureArena(length);
+    if (base == null) {
+      MEMORY.copyMemory(offset, _arena + _arenaUsed, length);
+    } else {
+      MEMORY.copyMemory(base, offset, _arena + _arenaUsed, length);
+    }
+    MEMORY.writeInt(slot, hash);
+    MEMORY.writeInt(slot + 4, length + 1);
+    MEMORY.writeLong(slot + 8, _arenaUsed);
+    _arenaUsed += length;
+    _size++;
+    return true;
+  }
+
+  // grows before a new key goes in, so when the growth cannot be reserved the set is unchanged
+  private boolean add(int hash, Object base, long offset, int length) {
+    if (_size >= _resizeAt && MEMORY.readInt(slot(find(hash, base, offset, length)) + 4) == 0) {
+      rehash(_capacity << 1);
+    }
+    return insert(hash, base, offset, length);
+  }
+
+  public boolean addBytes(byte[] bytes, int offset, int length) {
+    long address = BYTE_ARRAY_BASE + offset;
+    return add(hash(bytes, address, length), bytes, address, length);
+  }
+
+  public boolean containsBytes(byte[] bytes, int offset, int length) {
+    long address = BYTE_ARRAY_BASE + offset;
+    return MEMORY.readInt(slot(find(hash(bytes, address, length), bytes, address, length)) + 4) != 0;
+  }
+
+  // keys are stored as their byte form, so other sets' keys are probed and copied in place
+  @Override
+  public boolean containsKeyBytes(Object base, long offset, int length, Class<K> keyClass) {
+    return MEMORY.readInt(slot(find(hash(base, offset, length), base, offset, length)) + 4) != 0;
+  }
+
+  @Override
+  public boolean addKeyBytes(Object base, long offset, int length, Class<K> keyClass) {
+    return add(hash(base, offset, length), base, offset, length);
+  }
+
+  /*
+    Adds a block of keys in the layout of ByteArraySetBackend.addAll, as the bytes
+    add() would store (UTF-8 for Strings), and returns how many were new. Keys are
+    read in place from heap or direct buffers. Each batch is hashed and its
+    home slots loaded first, so the cache misses of a batch overlap instead of each
+    probe waiting on its own, then probed.
+   */
+  public int addAll(ByteBuffer offsets, ByteBuffer data) {
+    Object base = data.hasArray() ? data.array() : null;
+    long start = (data.hasArray() ? BYTE_ARRAY_BASE + data.arrayOffset() : Jvm.address(data)) + data.position();
+    int first = offsets.position();
+    int numKeys = offsets.remaining() / Integer.BYTES - 1;
+    int added = 0;
+    int touched = 0;
+    for (int key = 0; key < numKeys; ) {
+      if (_size >= _resizeAt) {
+        int from = offsets.getInt(first + key * Integer.BYTES);
+        int length = offsets.getInt(first + (key + 1) * Integer.BYTES) - from;
+        if (add(hash(base, start + from, length), base, start + from, length)) {
+          added++;
+        }
+        key++;
+        continue;
+      }
+      // no rehash inside a batch, so the hashed slots stay valid
+      int batch = Math.min(BATCH, Math.min(numKeys - key, _resizeAt - _size));
+      for (int i = 0; i < batch; i++) {
+        int from = offsets.getInt(first + (key + i) * Integer.BYTES);
+        int hash = hash(base, start + from, offsets.getInt(first + (key + i + 1) * Integer.BYTES) - from);
+        _batchHashes[i] = hash;
+        touched += MEMORY.readInt(slot(hash & _mask) + 4);
+      }
+      for (int i = 0; i < batch; i++) {
+        int from = offsets.getInt(first + (key + i) * Integer.BYTES);
+        int length = offsets.getInt(first + (key + i + 1) * Integer.BYTES) - from;
+        if (insert(_batchHashes[i], base, start + from, length)) {
+          added++;
+        }
+      }
+      key += batch;
+    }
+    _touched = touched;
+    return added;
+  }
+
+  /*
+    Membership of batch keys at (base, start + _batchFrom[i]) of _batchLength[i] bytes,
+    as the bits of the returned word. The batch is hashed and its home slots loaded
+    before probing, so their cache misses overlap.
+   */
+  protected long containsBatch(Object base, long start, int batch) {
+    int touched = 0;
+    for (int i = 0; i < batch; i++) {
+      int hash = hash(base, start + _batchFrom[i], _batchLength[i]);
+      _batchHashes[i] = hash;
+      touched += MEMORY.readInt(slot(hash & _mask) + 4);
+    }
+    long word = 0;
+    for (int i = 0; i < batch; i++) {
+      if (MEMORY.readInt(slot(find(_batchHashes[i], base, start + _batchFrom[i], _batchLength[i])) + 4) != 0) {
+        word |= 1L << i;
+      }
+    }
+    _touched = touched;
+    return word;
+  }
+
+  // ByteArraySetBackend.containsBlock over the bytes add() stores (UTF-8 for Strings), read in place
+  public int containsBlock(ByteBuffer offsets, ByteBuffer data, long[] bitmap) {
+    Object base = data.hasArray() ? data.array() : null;
+    long start = (data.hasArray() ? BYTE_ARRAY_BASE + data.arrayOffset() : Jvm.address(data)) + data.position();
+    int first = offsets.position();
+    int numKeys = offsets.remaining() / Integer.BYTES - 1;
+    int matches = 0;
+    for (int key = 0; key < numKeys; key += Long.SIZE) {
+      int batch = Math.min(Long.SIZE, numKeys - key);
+      for (int i = 0; i < batch; i++) {
+        _batchFrom[i] = offsets.getInt(first + (key + i) * Integer.BYTES);
+        _batchLength[i] = offsets.getInt(first + (key + i + 1) * Integer.BYTES) - _batchFrom[i];
+      }
+      long word = containsBatch(base, start, batch);
+      bitmap[key >>> 6] = word;
+      matches += Long.bitCount(word);
+    }
+    return matches;
+  }
+
+  private void ensureArena(int length) {
+    if (_arenaUsed + length <= _arenaCapacity) {
+      return;
+    }
+    long newCapacity = _arenaCapacity;
+    while (newCapacity < _arenaUsed + length) {
+      newCapacity <<= 1;
+    }
+    _reservation.reserve(newCapacity);
+    long newArena = MEMORY.allocate(newCapacity);
+    MEMORY.copyMemory(_arena, newArena, _arenaUsed);
+    MEMORY.freeMemory(_arena, _arenaCapacity);
+    _reservation.release(_arenaCapacity);
+    _arena = newArena;
+    _arenaCapacity = newCapacity;
+  }
+
+  // slots are moved with their stored hash, keys are never rehashed or touched
+  private void rehash(int newCapacity) {
+    long oldIndex = _index;
+    int oldCapacity = _capacity;
+    allocateIndex(newCapacity);
+    for (int i = 0; i < oldCapacity; i++) {
+      long oldSlot = oldIndex + (long) i * SLOT_BYTES;
+      if (MEMORY.readInt(oldSlot + 4) != 0) {
+        int index = MEMORY.readInt(oldSlot) & _mask;
+        while (MEMORY.readInt(slot(index) + 4) != 0) {
+          index = (index + 1) & _mask;
+        }
+        MEMORY.copyMemory(oldSlot, slot(index), SLOT_BYTES);
+      }
+    }
+    MEMORY.freeMemory(oldIndex, (long) oldCapacity * SLOT_BYTES);
+    _reservation.release((long) oldCapacity * SLOT_BYTES);
+  }
+
+  // materialise the key stored at [address, address + length) for iterator()
+  protected abstract K decode(long address, int length);
+
+  @Override
+  public Iterator<K> iterator() {
+    return new Iterator<K>() {
+      private int _next = advance(0);
+
+      private int advance(int from) {
+        while (from < _capacity && MEMORY.readInt(slot(from) + 4) == 0) {
+          from++;
+        }
+        return from;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return _next < _capacity;
+      }
+
+      @Override
+      public K next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        long slot = slot(_next);
+        K key = decode(_arena + MEMORY.readLong(slot + 8), MEMORY.readInt(slot + 4) - 1);
+        _next = advance(_next + 1);
+        return key;
+      }
+    };
+  }
+
+  /*
+    Keys are written in slot order, which is hash order, so a set importing the block
+    fills its index front to back instead of at random. The first pass reads only the
+    index to size the block.
+   */
+  @Override
+  public ByteBuffer exportKeys() {
+    long dataBytes = 0;
+    int width = -1;
+    for (int i = 0; i < _capacity; i++) {
+      int length = MEMORY.readInt(slot(i) + 4) - 1;
+      if (length >= 0) {
+        dataBytes += length;
+        width = width == -1 || width == length ? length : KeyBlock.VARIABLE;
+      }
+    }
+    if (width <= 0) {
+      width = KeyBlock.VARIABLE;
+    }
+    ByteBuffer block = KeyBlock.allocate(width, _size, dataBytes);
+    long offsets = Jvm.address(block) + KeyBlock.offsetsOffset();
+    long data = Jvm.address(block) + KeyBlock.dataOffset(block);
+    int key = 0;
+    long written = 0;
+    for (int i = 0; i < _capacity; i++) {
+      long slot = slot(i);
+      int length = MEMORY.readInt(slot + 4) - 1;
+      if (length >= 0) {
+        if (width == KeyBlock.VARIABLE) {
+          MEMORY.writeInt(offsets + (long) key * Integer.BYTES, (int) written);
+        }
+        MEMORY.copyMemory(_arena + MEMORY.readLong(slot + 8), data + written, length);
+        written += length;
+        key++;
+      }
+    }
+    if (width == KeyBlock.VARIABLE) {
+      MEMORY.writeInt(offsets + (long) key * Integer.BYTES, (int) written);
+    }
+    return block;
+  }
+
+  /*
+    Into an empty set the data of the block is copied into the arena in one go and
+    only the index is built per key, otherwise keys are copied one by one as by
+    addAll. The index grows once for the whole block, and each batch is hashed and
+    its home slots loaded before probing as in addAll.
+   */
+  @Override
+  public long importKeys(ByteBuffer block, Class<K> keyClass) {
+    int count = KeyBlock.count(block);
+    int width = KeyBlock.width(block);
+    int capacity = OffHeapIntSet.capacityFor((long) _size + count);
+    if (capacity > _capacity) {
+      rehash(capacity);
+    }
+    Object base = KeyBlock.base(block);
+    long start = KeyBlock.address(block);
+    long data = start + KeyBlock.dataOffset(block);
+    boolean inPlace = _size == 0;
+    long arenaStart = _arenaUsed;
+    if (inPlace) {
+      int dataBytes = KeyBlock.dataBytes(block);
+      ensureArena(dataBytes);
+      if (base == null) {
+        MEMORY.copyMemory(data, _arena + arenaStart, dataBytes);
+      } else {
+        MEMORY.copyMemory(base, data, _arena + arenaStart, dataBytes);
+      }
+      _arenaUsed += dataBytes;
+      // keys are read from their copy in the arena from here on
+      base = null;
+      data = _arena + arenaStart;
+    }
+    long added = 0;
+    int touched = 0;
+    for (int key = 0; key < count; key += Long.SIZE) {
+      int batch = Math.min(Long.SIZE, count - key);
+      for (int i = 0; i < batch; i++) {
+        if (width == KeyBlock.VARIABLE) {
+          long offsets = start + KeyBlock.offsetsOffset() + (long) (key + i) * Integer.BYTES;
+          _batchFrom[i] = MEMORY.readInt(KeyBlock.base(block), offsets);
+          _batchLength[i] = MEMORY.readInt(KeyBlock.base(block), offsets + Integer.BYTES) - _batchFrom[i];
+        } else {
+          _batchFrom[i] = (key + i) * width;
+          _batchLength[i] = width;
+        }
+        int hash = hash(base, data + _batchFrom[i], _batchLength[i]);
+        _batchHashes[i] = hash;
+        touched += MEMORY.readInt(slot(hash & _mask) + 4);
+      }
+      for (int i = 0; i < batch; i++) {
+        if (!inPlace) {
+          if (insert(_batchHashes[i], base, data + _batchFrom[i], _batchLength[i])) {
+            added++;
+          }
+          continue;
+        }
+        // the key stays where it was copied, only its slot is written
+        long slot = slot(find(_batchHashes[i], null, data + _batchFrom[i], _batchLength[i]));
+        if (MEMORY.readInt(slot + 4) == 0) {
+          MEMORY.writeInt(slot, _batchHashes[i]);
+          MEMORY.writeInt(slot + 4, _batchLength[i] + 1);
+          MEMORY.writeLong(slot + 8, arenaStart + _batchFrom[i]);
+          _size++;
+          added++;
+        }
+      }
+    }
+    _touched = touched;
+    return added;
+  }
+
+  // stored keys straight from the arena, no decode()
+  @Override
+  public void forEachBytes(BytesConsumer consumer) {
+    for (int i = 0; i < _capacity; i++) {
+      long slot = slot(i);
+      int length = MEMORY.readInt(slot + 4) - 1;
+      if (length >= 0) {
+        consumer.accept(null, _arena + MEMORY.readLong(slot + 8), length);
+      }
+    }
+  }
+
+  @Override
+  public long size() {
+    return _size;
+  }
+
+  @Override
+  public long memoryUsed() {
+    return (long) _capacity * SLOT_BYTES + _arenaCapacity;
+  }
+
+  @Override
+  public void close() {
+    if (_index != 0) {
+      MEMORY.freeMemory(_index, (long) _capacity * SLOT_BYTES);
+      MEMORY.freeMemory(_arena, _arenaCapacity);
+      _reservation.release((long) _capacity * SLOT_BYTES + _arenaCapacity);
+      _index = 0;
+      _arena = 0;
+    }
+  }
+}
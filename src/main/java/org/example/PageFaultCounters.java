@@ -0,0 +1,37 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/*
+  Adds the process page faults of each iteration to the JMH results as
+  minorFaults and majorFaults. Take it as a benchmark method argument.
+  Counts are process wide, so they include faults of every benchmark thread.
+ */
+@AuxCounters(AuxCounters.Type.EVENTS)
+@State(Scope.Thread)
+public class PageFaultCounters {
+  public long minorFaults;
+  public long majorFaults;
+
+  private long _minorStart;
+  private long _majorStart;
+
+  @Setup(Level.Iteration)
+  public void start() {
+    minorFaults = 0;
+    majorFaults = 0;
+    _minorStart = ProcessStats.minorFaults();
+    _majorStart = ProcessStats.majorFaults();
+  }
+
+  @TearDown(Level.Iteration)
+  public void stop() {
+    minorFaults = ProcessStats.minorFaults() - _minorStart;
+    majorFaults = ProcessStats.majorFaults() - _majorStart;
+  }
+}
@@ -0,0 +1,35 @@
+package org.example;
+
+import java.util.function.IntConsumer;
+
+/*
+  PartitionedSet of int keys, routing without boxing
+  Integer.hashCode is the value, so int and boxed keys land in the same partition.
+ */
+public class PartitionedIntSet extends PartitionedSet<Integer> implements IntSetBackend {
+  private final IntSetBackend[] _intPartitions;
+  private final int _shift;
+
+  public PartitionedIntSet(IntSetBackend[] partitions) {
+    super(partitions);
+    _intPartitions = partitions;
+    _shift = shiftFor(partitions.length);
+  }
+
+  @Override
+  public boolean add(int key) {
+    return _intPartitions[partitionOf(key, _shift)].add(key);
+  }
+
+  @Override
+  public boolean contains(int key) {
+    return _intPartitions[partitionOf(key, _shift)].contains(key);
+  }
+
+  @Override
+  public void forEach(IntConsumer consumer) {
+    for (IntSetBackend partition : _intPartitions) {
+      partition.forEach(consumer);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+  Set made of independent partitions, each key living in one partition only
+  Built by SetMerge, which fills the partitions in parallel without locking since
+  no two partitions share a key. add and contains route to partitionOf(key), so the
+  result behaves as one set. The partition count is a power of two.
+ */
+public class PartitionedSet<K> implements SetBackend<K> {
+  private final SetBackend<K>[] _partitions;
+  private final int _shift;
+
+  public PartitionedSet(SetBackend<K>[] partitions) {
+    _partitions = partitions;
+    _shift = shiftFor(partitions.length);
+  }
+
+  static int shiftFor(int partitions) {
+    if (Integer.bitCount(partitions) != 1) {
+      throw new IllegalArgumentException("Partition count must be a power of two: " + partitions);
+    }
+    return Integer.SIZE - Integer.numberOfTrailingZeros(partitions);
+  }
+
+  /*
+    Top bits of a multiplicative hash, a different mix than the sets use for their
+    own slots so keys of one partition still spread over its whole table
+   */
+  static int partitionOf(int hash, int shift) {
+    return shift == Integer.SIZE ? 0 : (hash * 0x85EBCA6B) >>> shift;
+  }
+
+  // byte[] keys hash by content, as equals of the off-heap sets compares them
+  static int hash(Object key) {
+    return key instanceof byte[] ? Arrays.hashCode((byte[]) key) : key.hashCode();
+  }
+
+  /*
+    hash(key) of the key whose forEachBytes form is the length bytes at (base, offset),
+    so keys scattered as bytes land in the partition add and contains route them to
+   */
+  static int hashBytes(Class<?> keyClass, Object base, long offset, int length) {
+    if (keyClass == Integer.class) {
+      return OffHeapVarKeySet.MEMORY.readInt(base, offset);
+    }
+    if (keyClass == Long.class) {
+      return Long.hashCode(OffHeapVarKeySet.MEMORY.readLong(base, offset));
+    }
+    if (keyClass == String.class) {
+      return Utf8.hashCode(base, offset, length);
+    }
+    if (keyClass == byte[].class) {
+      int h = 1;
+      for (int i = 0; i < length; i++) {
+        h = 31 * h + OffHeapVarKeySet.MEMORY.readByte(base, offset + i);
+      }
+      return h;
+    }
+    throw new UnsupportedOperationException("No byte form hash for " + keyClass.getName());
+  }
+
+  int partitionOf(K key) {
+    return partitionOf(hash(key), _shift);
+  }
+
+  public int partitions() {
+    return _partitions.length;
+  }
+
+  public SetBackend<K> partition(int index) {
+    return _partitions[index];
+  }
+
+  @Override
+  public boolean add(K key) {
+    return _partitions[partitionOf(key)].add(key);
+  }
+
+  @Override
+  public boolean contains(K key) {
+    return _partitions[partitionOf(key)].contains(key);
+  }
+
+  @Override
+  public Iterator<K> iterator() {
+    return new Iterator<K>() {
+      private int _next;
+      private Iterator<K> _it = Collections.emptyIterator();
+
+      @Override
+      public boolean hasNext() {
+        while (!_it.hasNext() && _next < _partitions.length) {
+          _it = _partitions[_next++].iterator();
+        }
+        return _it.hasNext();
+      }
+
+      @Override
+      public K next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return _it.next();
+      }
+    };
+  }
+
+  @Override
+  public void forEachBytes(BytesConsumer consumer) {
+    for (SetBackend<K> partition : _partitions) {
+      partition.forEachBytes(consumer);
+    }
+  }
+
+  @Override
+  public long size() {
+    long size = 0;
+    for (SetBackend<K> partition : _partitions) {
+      size += partition.size();
+    }
+    return size;
+  }
+
+  @Override
+  public long memoryUsed() {
+    long bytes = 0;
+    for (SetBackend<K> partition : _partitions) {
+      bytes += partition.memoryUsed();
+    }
+    return bytes;
+  }
+
+  @Override
+  public void close() {
+    for (SetBackend<K> partition : _partitions) {
+      if (partition != null) {
+        partition.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/*
+  Process level counters read from /proc/self on Linux, -1 elsewhere
+ */
+public final class ProcessStats {
+  private static final int MINOR_FAULTS_FIELD = 10; // field numbers as in proc(5), /proc/[pid]/stat
+  private static final int MAJOR_FAULTS_FIELD = 12;
+
+  private ProcessStats() {
+  }
+
+  // page faults served without disk I/O
+  public static long minorFaults() {
+    return statField(MINOR_FAULTS_FIELD);
+  }
+
+  // page faults which had to read from disk, e.g. mmap pages evicted under memory pressure
+  public static long majorFaults() {
+    return statField(MAJOR_FAULTS_FIELD);
+  }
+
+  // resident set size in bytes
+  public static long residentBytes() {
+    try {
+      for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+        if (line.startsWith("VmRSS:")) {
+          return Long.parseLong(line.substring(6).trim().split("\\s+")[0]) * 1024;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      // not Linux
+    }
+    return -1;
+  }
+
+  private static long statField(int field) {
+    try {
+      String stat = new String(Files.readAllBytes(Paths.get("/proc/self/stat")));
+      // the command name (field 2) may contain spaces, so count fields from its closing ')'
+      String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+      return Long.parseLong(fields[field - 3]);
+    } catch (IOException | RuntimeException e) {
+      return -1;
+    }
+  }
+}
@@ -1,19 +1,35 @@
 package org.example;
 
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.function.IntSupplier;
 import org.apache.commons.lang3.RandomStringUtils;
 import java.util.Random;
 import java.util.Set;
 
-
+/*
+  Seeded generator for benchmark keys. Two instances with the same seed produce the
+  same keys, and the generate* methods build key and probe arrays up front so
+  measured code only reads arrays.
+ */
 public class RandomUtils {
-  private final Random _random = new Random();
+  private static final long DEFAULT_SEED = 42;
+  private static final double HOTSPOT_KEY_FRACTION = 0.2;    // HOTSPOT: this fraction of the keys ...
+  private static final double HOTSPOT_ACCESS_FRACTION = 0.8; // ... gets this fraction of the accesses
+
+  private final Random _random;
+
+  public RandomUtils() {
+    this(DEFAULT_SEED);
+  }
+
+  public RandomUtils(long seed) {
+    _random = new Random(seed);
+  }
 
   // The generateRandomString method returns a random alphabetic string of length at most maxLength
   public String generateRandomString(int minLength, int maxLength) {
-
-    return RandomStringUtils.randomAlphabetic(minLength,maxLength+1);
+    int length = minLength + _random.nextInt(maxLength - minLength + 1);
+    return RandomStringUtils.random(length, 0, 0, true, false, null, _random);
   }
 
   // The generateRandomByteArray method returns a random byte array of length at most maxLength
@@ -61,6 +77,102 @@ public class RandomUtils {
     }
   }
 
+  // Record with one value per column, column i drawn uniformly from cardinalities[i % cardinalities.length] values
+  public Record generateRecord(ColumnType[] columns, int[] cardinalities){
+    Object[] values = new Object[columns.length];
+    for(int i=0;i<columns.length;++i){
+      values[i] = columnValue(columns[i], _random.nextInt(cardinalities[i % cardinalities.length]));
+    }
+    return new Record(values);
+  }
+
+  // the index-th distinct value of a column of the given type
+  static Object columnValue(ColumnType type, int index){
+    switch(type){
+      case INT:
+      case DICT_ID:
+        return index;
+      case LONG:
+        return index * 1000003L;
+      case DOUBLE:
+        return index * 0.5;
+      case STRING:
+        return "value" + index;
+      default:
+        throw new IllegalArgumentException("Unknown column type " + type);
+    }
+  }
+
+  public String[] generateStrings(int count, int minLength, int maxLength){
+    String[] strings = new String[count];
+    for(int i=0;i<count;++i)
+      strings[i] = generateRandomString(minLength,maxLength);
+    return strings;
+  }
+
+  public byte[][] generateByteArrays(int count, int maxLength){
+    byte[][] arrays = new byte[count][];
+    for(int i=0;i<count;++i)
+      arrays[i] = generateRandomByteArray(maxLength);
+    return arrays;
+  }
+
+  // draws indexes in [0, range) following distribution
+  private IntSupplier indexSampler(int range, KeyDistribution distribution){
+    switch(distribution){
+      case UNIFORM:
+        return () -> _random.nextInt(range);
+      case ZIPFIAN:
+        ZipfianGenerator zipf = new ZipfianGenerator(range,_random);
+        return zipf::next;
+      case HOTSPOT:
+        int hotKeys = Math.max(1, Math.min(range-1, (int)(range*HOTSPOT_KEY_FRACTION)));
+        if(hotKeys >= range)
+          return () -> 0;
+        return () -> _random.nextDouble() < HOTSPOT_ACCESS_FRACTION ? _random.nextInt(hotKeys) : hotKeys + _random.nextInt(range-hotKeys);
+      default:
+        throw new IllegalArgumentException("Unknown distribution " + distribution);
+    }
+  }
+
+  // count indexes in [0, range) following distribution, e.g. int keys with collisions
+  public int[] generateIndexes(int count, int range, KeyDistribution distribution){
+    IntSupplier sampler = indexSampler(range,distribution);
+    int[] indexes = new int[count];
+    for(int i=0;i<count;++i)
+      indexes[i] = sampler.getAsInt();
+    return indexes;
+  }
+
+  // int probes for a set holding [0, numPresent): hitRatio of them fall in it, the rest in [numPresent, maxValue)
+  public int[] generateIntProbes(int count, int numPresent, int maxValue, double hitRatio, KeyDistribution distribution){
+    IntSupplier hits = indexSampler(numPresent,distribution);
+    IntSupplier misses = indexSampler(maxValue-numPresent,distribution);
+    int[] probes = new int[count];
+    for(int i=0;i<count;++i)
+      probes[i] = _random.nextDouble() < hitRatio ? hits.getAsInt() : numPresent + misses.getAsInt();
+    return probes;
+  }
+
+  // fills probes, hitRatio of them picked from present and the rest from absent, both following distribution
+  public <K> K[] generateProbes(K[] present, K[] absent, K[] probes, double hitRatio, KeyDistribution distribution){
+    IntSupplier hits = indexSampler(present.length,distribution);
+    IntSupplier misses = indexSampler(absent.length,distribution);
+    for(int i=0;i<probes.length;++i)
+      probes[i] = _random.nextDouble() < hitRatio ? present[hits.getAsInt()] : absent[misses.getAsInt()];
+    return probes;
+  }
+
+  // Fisher-Yates shuffle of values in place
+  public void shuffle(int[] values){
+    for(int i=values.length-1;i>0;--i){
+      int j = _random.nextInt(i+1);
+      int value = values[i];
+      values[i] = values[j];
+      values[j] = value;
+    }
+  }
+
   public int getRandomInt(int minValue,int maxValue){
     return _random.nextInt(maxValue-minValue)+minValue;
   }
@@ -31,19 +31,20 @@ public class Record implements Serializable {
 
   public static void main(String[] args) {
 
+    // rows are written with RecordCodec instead of java serialization, so all
+    // records in a set share one schema
+    RecordCodec codec = new RecordCodec(ColumnType.STRING, ColumnType.INT);
+    Record r1 = new Record(new Object[]{"abc", 100});
+    Record r2 = new Record(new Object[]{"bcd", 300});
+    Record r3 = new Record(new Object[]{"abc", 100});
+
     try (ChronicleSet<Record> recordSet = ChronicleSetBuilder
         .of(Record.class)
-        .averageKeySize(500)
+        .keyMarshaller(new RecordMarshaller(codec))
+        .averageKey(r1)
         .entries(10)
         .create()) {
 
-
-      String[] str1 = {"abc","bcd"};
-      Integer[] int1 = {100,300,400};
-      Record r1 = new Record(str1);
-      Record r2 = new Record(int1);
-      Record r3 = new Record(str1);
-
       recordSet.add(r1);
       recordSet.add(r2);
 
@@ -52,7 +53,7 @@ public class Record implements Serializable {
 
       // Iterate over the set
       for (Record r : recordSet) {
-        System.out.println("Record in set: " + r);
+        System.out.println("Record in set: " + Arrays.toString(r.getValues()));
       }
     }
   }
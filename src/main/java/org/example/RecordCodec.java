@@ -0,0 +1,136 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.OS;
+
+/*
+  Schema aware binary row layout for Record keys, replacing java serialization
+  A row is a fixed width part with one slot per column followed by the bytes of all
+  STRING columns:
+    INT, DICT_ID   4 byte value
+    LONG, DOUBLE   8 byte value
+    STRING         4 byte end offset of its UTF-8 bytes within the variable part
+  The row length can be read back from the last STRING slot, so rows need no length
+  prefix. A Record always encodes to the same bytes, which lets Chronicle compare
+  keys in serialized form. Values must be boxed exactly as their column type:
+  Integer for INT and DICT_ID, Long, Double and String.
+ */
+public class RecordCodec {
+  private static final Memory MEMORY = OS.memory();
+  private static final long BYTE_ARRAY_BASE = MEMORY.arrayBaseOffset(byte[].class);
+
+  private final ColumnType[] _columns;
+  private final int[] _slotOffsets;
+  private final int _fixedWidth;
+  private final int _lastStringSlot; // -1 when the schema has no STRING column
+
+  public RecordCodec(ColumnType... columns) {
+    _columns = columns.clone();
+    _slotOffsets = new int[columns.length];
+    int offset = 0;
+    int lastStringSlot = -1;
+    for (int i = 0; i < columns.length; i++) {
+      _slotOffsets[i] = offset;
+      if (columns[i] == ColumnType.STRING) {
+        lastStringSlot = offset;
+      }
+      offset += columns[i].getWidth();
+    }
+    _fixedWidth = offset;
+    _lastStringSlot = lastStringSlot;
+  }
+
+  public ColumnType[] getColumns() {
+    return _columns.clone();
+  }
+
+  public int getFixedWidth() {
+    return _fixedWidth;
+  }
+
+  // upper bound of the encoded row length, enough to size a buffer before encode
+  public int maxSize(Record record) {
+    int size = _fixedWidth;
+    if (_lastStringSlot >= 0) {
+      Object[] values = record.getValues();
+      for (int i = 0; i < _columns.length; i++) {
+        if (_columns[i] == ColumnType.STRING) {
+          size += Utf8.maxEncodedLength((String) values[i]);
+        }
+      }
+    }
+    return size;
+  }
+
+  // writes record at row[offset] and returns the encoded row length
+  public int encode(Record record, byte[] row, int offset) {
+    Object[] values = record.getValues();
+    if (values.length != _columns.length) {
+      throw new IllegalArgumentException("Record has " + values.length + " values, schema has " + _columns.length);
+    }
+    long base = BYTE_ARRAY_BASE + offset;
+    int varStart = offset + _fixedWidth;
+    int varEnd = varStart;
+    for (int i = 0; i < _columns.length; i++) {
+      long slot = base + _slotOffsets[i];
+      switch (_columns[i]) {
+        case INT:
+        case DICT_ID:
+          MEMORY.writeInt(row, slot, (Integer) values[i]);
+          break;
+        case LONG:
+          MEMORY.writeLong(row, slot, (Long) values[i]);
+          break;
+        case DOUBLE:
+          MEMORY.writeDouble(row, slot, (Double) values[i]);
+          break;
+        case STRING:
+          varEnd = Utf8.encode((String) values[i], row, varEnd);
+          MEMORY.writeInt(row, slot, varEnd - varStart);
+          break;
+        default:
+          throw new IllegalStateException("Unknown column type " + _columns[i]);
+      }
+    }
+    return varEnd - offset;
+  }
+
+  // length of the row starting at row[offset], only its fixed width part has to be present
+  public int rowLength(byte[] row, int offset) {
+    if (_lastStringSlot < 0) {
+      return _fixedWidth;
+    }
+    return _fixedWidth + MEMORY.readInt(row, BYTE_ARRAY_BASE + offset + _lastStringSlot);
+  }
+
+  public Record decode(byte[] row, int offset) {
+    Object[] values = new Object[_columns.length];
+    long base = BYTE_ARRAY_BASE + offset;
+    int varStart = offset + _fixedWidth;
+    int varPos = varStart;
+    for (int i = 0; i < _columns.length; i++) {
+      long slot = base + _slotOffsets[i];
+      switch (_columns[i]) {
+        case INT:
+        case DICT_ID:
+          values[i] = MEMORY.readInt(row, slot);
+          break;
+        case LONG:
+          values[i] = MEMORY.readLong(row, slot);
+          break;
+        case DOUBLE:
+          values[i] = MEMORY.readDouble(row, slot);
+          break;
+        case STRING:
+          int end = varStart + MEMORY.readInt(row, slot);
+          values[i] = new String(row, varPos, end - varPos, StandardCharsets.UTF_8);
+          varPos = end;
+          break;
+        default:
+          throw new IllegalStateException("Unknown column type " + _columns[i]);
+      }
+    }
+    return new Record(values);
+  }
+}
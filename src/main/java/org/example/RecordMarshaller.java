@@ -0,0 +1,88 @@
+package org.example;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.hash.serialization.SizedReader;
+import net.openhft.chronicle.hash.serialization.SizedWriter;
+import net.openhft.chronicle.hash.serialization.StatefulCopyable;
+import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireOut;
+
+/*
+  Chronicle key marshaller writing Records in the RecordCodec row layout
+  Chronicle asks for size(record) right before write(out, size, record), so the row
+  encoded for size is kept and copied out by write. That makes instances stateful,
+  Chronicle gets a copy per thread through StatefulCopyable.
+ */
+public class RecordMarshaller implements SizedReader<Record>, SizedWriter<Record>,
+    StatefulCopyable<RecordMarshaller> {
+  private RecordCodec _codec;
+  private transient byte[] _row = new byte[256];
+  private transient Record _encoded;
+  private transient int _encodedLength;
+
+  public RecordMarshaller(RecordCodec codec) {
+    _codec = codec;
+  }
+
+  @Override
+  public long size(Record record) {
+    int maxSize = _codec.maxSize(record);
+    if (_row.length < maxSize) {
+      _row = new byte[maxSize];
+    }
+    _encodedLength = _codec.encode(record, _row, 0);
+    _encoded = record;
+    return _encodedLength;
+  }
+
+  // SizedWriter declares a raw Bytes parameter, Bytes<?> would not override it
+  @Override
+  @SuppressWarnings("rawtypes")
+  public void write(Bytes out, long size, Record record) {
+    if (_encoded != record) {
+      size(record);
+    }
+    out.write(_row, 0, _encodedLength);
+    _encoded = null;
+  }
+
+  // SizedReader declares a raw Bytes parameter, Bytes<?> would not override it
+  @Override
+  @SuppressWarnings("rawtypes")
+  public Record read(Bytes in, long size, Record using) {
+    if (_row.length < size) {
+      _row = new byte[(int) size];
+    }
+    in.read(_row, 0, (int) size);
+    _encoded = null;
+    return _codec.decode(_row, 0);
+  }
+
+  @Override
+  public RecordMarshaller copy() {
+    return new RecordMarshaller(_codec);
+  }
+
+  @Override
+  public void writeMarshallable(WireOut wire) {
+    StringBuilder columns = new StringBuilder();
+    for (ColumnType column : _codec.getColumns()) {
+      if (columns.length() > 0) {
+        columns.append(',');
+      }
+      columns.append(column.name());
+    }
+    wire.write("columns").text(columns);
+  }
+
+  @Override
+  public void readMarshallable(WireIn wire) {
+    String[] names = wire.read("columns").text().split(",");
+    ColumnType[] columns = new ColumnType[names.length];
+    for (int i = 0; i < names.length; i++) {
+      columns[i] = ColumnType.valueOf(names[i]);
+    }
+    _codec = new RecordCodec(columns);
+    _row = new byte[256];
+  }
+}
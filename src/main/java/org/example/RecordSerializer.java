@@ -0,0 +1,44 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+/*
+  MapDB Serializer writing Records in the RecordCodec row layout
+  Rows are encoded straight into the DataOutput2 buffer. Stateless, so one instance
+  can be shared by every thread.
+ */
+public class RecordSerializer implements Serializer<Record> {
+  private final RecordCodec _codec;
+
+  public RecordSerializer(RecordCodec codec) {
+    _codec = codec;
+  }
+
+  @Override
+  public void serialize(DataOutput2 out, Record record) throws IOException {
+    out.ensureAvail(_codec.maxSize(record));
+    out.pos += _codec.encode(record, out.buf, out.pos);
+  }
+
+  @Override
+  public Record deserialize(DataInput2 in, int available) throws IOException {
+    int fixedWidth = _codec.getFixedWidth();
+    byte[] row = new byte[fixedWidth];
+    in.readFully(row);
+    int length = _codec.rowLength(row, 0);
+    if (length > fixedWidth) {
+      row = Arrays.copyOf(row, length);
+      in.readFully(row, fixedWidth, length - fixedWidth);
+    }
+    return _codec.decode(row, 0);
+  }
+
+  @Override
+  public boolean isTrusted() {
+    return true;
+  }
+}
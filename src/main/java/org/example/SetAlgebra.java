@@ -0,0 +1,89 @@
+package org.example;
+
+import java.util.function.LongFunction;
+
+/*
+  UNION, INTERSECT and EXCEPT of two sets of the same key type, into a new set
+  Keys never become java objects on the way: one side is streamed with
+  forEachBytes, the other probed with containsKeyBytes, and results are written
+  with addKeyBytes, so off-heap sets (OFFHEAP, CHRONICLE) combine straight from
+  native memory to native memory. Backends holding key objects go through the
+  decoding defaults of SetBackend and still work.
+  INTERSECT streams the smaller side and probes the larger, so its cost follows the
+  smaller set. EXCEPT has to stream its left side. The result set comes from
+  factory, which gets the result size bound: the sum for UNION, the smaller size
+  for INTERSECT, the left size for EXCEPT. Inputs are only read and stay open.
+ */
+public final class SetAlgebra {
+
+  private SetAlgebra() {
+  }
+
+  public static <K> SetBackend<K> union(SetBackend<K> left, SetBackend<K> right, Class<K> keyClass,
+                                        LongFunction<? extends SetBackend<K>> factory) {
+    SetBackend<K> larger = left.size() >= right.size() ? left : right;
+    SetBackend<K> smaller = larger == left ? right : left;
+    SetBackend<K> result = create(factory, left.size() + right.size());
+    try {
+      // the larger side goes in without a hit, only the smaller side's keys can be duplicates
+      larger.forEachBytes((base, offset, length) -> result.addKeyBytes(base, offset, length, keyClass));
+      smaller.forEachBytes((base, offset, length) -> result.addKeyBytes(base, offset, length, keyClass));
+    } catch (RuntimeException e) {
+      result.close();
+      throw e;
+    }
+    return result;
+  }
+
+  public static <K> SetBackend<K> intersect(SetBackend<K> left, SetBackend<K> right, Class<K> keyClass,
+                                            LongFunction<? extends SetBackend<K>> factory) {
+    SetBackend<K> larger = left.size() >= right.size() ? left : right;
+    SetBackend<K> smaller = larger == left ? right : left;
+    SetBackend<K> result = create(factory, smaller.size());
+    try {
+      smaller.forEachBytes((base, offset, length) -> {
+        if (larger.containsKeyBytes(base, offset, length, keyClass)) {
+          result.addKeyBytes(base, offset, length, keyClass);
+        }
+      });
+    } catch (RuntimeException e) {
+      result.close();
+      throw e;
+    }
+    return result;
+  }
+
+  // left EXCEPT right
+  public static <K> SetBackend<K> difference(SetBackend<K> left, SetBackend<K> right, Class<K> keyClass,
+                                             LongFunction<? extends SetBackend<K>> factory) {
+    SetBackend<K> result = create(factory, left.size());
+    try {
+      left.forEachBytes((base, offset, length) -> {
+        if (!right.containsKeyBytes(base, offset, length, keyClass)) {
+          result.addKeyBytes(base, offset, length, keyClass);
+        }
+      });
+    } catch (RuntimeException e) {
+      result.close();
+      throw e;
+    }
+    return result;
+  }
+
+  // |left INTERSECT right| without building the result, e.g. for join selectivity or a semi join check
+  public static <K> long intersectionSize(SetBackend<K> left, SetBackend<K> right, Class<K> keyClass) {
+    SetBackend<K> larger = left.size() >= right.size() ? left : right;
+    SetBackend<K> smaller = larger == left ? right : left;
+    long[] matches = new long[1];
+    smaller.forEachBytes((base, offset, length) -> {
+      if (larger.containsKeyBytes(base, offset, length, keyClass)) {
+        matches[0]++;
+      }
+    });
+    return matches[0];
+  }
+
+  private static <K> SetBackend<K> create(LongFunction<? extends SetBackend<K>> factory, long entries) {
+    return factory.apply(Math.max(1, entries));
+  }
+}
@@ -0,0 +1,119 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/*
+  Common view over the hash set implementations we benchmark, so every workload
+  can be written once and run against Chronicle, MapDB, HashSet or a custom set.
+  Instances are created through SetBackendType and must be closed to release
+  their off-heap memory.
+ */
+public interface SetBackend<K> extends AutoCloseable {
+
+  boolean add(K key);
+
+  boolean contains(K key);
+
+  /*
+    Membership of a whole block, e.g. for an IN filter: sets bit i of bitmap (see
+    Bitmaps, at least Bitmaps.words(length) longs, overwritten) when keys[i] is in
+    the set and returns the number of matches. One call per block instead of per key.
+   */
+  default int containsBlock(K[] keys, int length, long[] bitmap) {
+    int matches = 0;
+    for (int w = 0; w < Bitmaps.words(length); w++) {
+      long word = 0;
+      for (int i = w << 6, end = Math.min(length, i + 64); i < end; i++) {
+        if (contains(keys[i])) {
+          word |= 1L << i;
+          matches++;
+        }
+      }
+      bitmap[w] = word;
+    }
+    return matches;
+  }
+
+  // as containsBlock, listing the indexes of the matching keys in matches instead
+  default int containsBlock(K[] keys, int length, int[] matches) {
+    int count = 0;
+    for (int i = 0; i < length; i++) {
+      if (contains(keys[i])) {
+        matches[count++] = i;
+      }
+    }
+    return count;
+  }
+
+  Iterator<K> iterator();
+
+  /*
+    Hands every key to consumer as bytes, without materialising a key object where
+    the set stores keys off-heap: UTF-8 for Strings, the array for byte[], Integer and
+    Long in native byte order, other keys as the set stores them. This default goes
+    through iterator() and encodes each key into one reused buffer, so only sets
+    that override it iterate allocation free.
+   */
+  default void forEachBytes(BytesConsumer consumer) {
+    byte[] scratch = new byte[64];
+    Iterator<K> it = iterator();
+    while (it.hasNext()) {
+      K key = it.next();
+      if (key instanceof byte[]) {
+        byte[] bytes = (byte[]) key;
+        consumer.accept(bytes, OffHeapVarKeySet.BYTE_ARRAY_BASE, bytes.length);
+      } else if (key instanceof String) {
+        String value = (String) key;
+        if (scratch.length < Utf8.maxEncodedLength(value)) {
+          scratch = new byte[Utf8.maxEncodedLength(value)];
+        }
+        consumer.accept(scratch, OffHeapVarKeySet.BYTE_ARRAY_BASE, Utf8.encode(value, scratch, 0));
+      } else if (key instanceof Integer) {
+        OffHeapVarKeySet.MEMORY.writeInt(scratch, OffHeapVarKeySet.BYTE_ARRAY_BASE, (Integer) key);
+        consumer.accept(scratch, OffHeapVarKeySet.BYTE_ARRAY_BASE, Integer.BYTES);
+      } else if (key instanceof Long) {
+        OffHeapVarKeySet.MEMORY.writeLong(scratch, OffHeapVarKeySet.BYTE_ARRAY_BASE, (Long) key);
+        consumer.accept(scratch, OffHeapVarKeySet.BYTE_ARRAY_BASE, Long.BYTES);
+      } else {
+        throw new UnsupportedOperationException("No byte form for " + key.getClass().getName());
+      }
+    }
+  }
+
+  // all keys as one KeyBlock in a new direct buffer, copied from where forEachBytes finds them
+  default ByteBuffer exportKeys() {
+    return KeyBlock.export(this);
+  }
+
+  /*
+    Adds every key of a KeyBlock and returns how many were new. keyClass decodes the
+    keys for sets which hold key objects, sets which store key bytes load them as
+    they are. See SetBackendType.importSet to rebuild a set sized for the block.
+   */
+  default long importKeys(ByteBuffer block, Class<K> keyClass) {
+    return KeyBlock.addAll(this, keyClass, block);
+  }
+
+  /*
+    contains and add for a key in the byte form of forEachBytes, e.g. streamed from
+    another set of the same key type (see SetAlgebra). Sets which store key bytes
+    probe and copy them as they are; these defaults decode the key as keyClass
+    (Integer, Long, String or byte[]) first.
+   */
+  default boolean containsKeyBytes(Object base, long offset, int length, Class<K> keyClass) {
+    return contains(keyClass.cast(KeyBlock.decode(keyClass, base, offset, length)));
+  }
+
+  default boolean addKeyBytes(Object base, long offset, int length, Class<K> keyClass) {
+    return add(keyClass.cast(KeyBlock.decode(keyClass, base, offset, length)));
+  }
+
+  long size();
+
+  // bytes held by the set outside the java heap, 0 for purely on-heap sets
+  long memoryUsed();
+
+  @Override
+  void close();
+}
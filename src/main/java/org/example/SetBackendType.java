@@ -0,0 +1,262 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import net.openhft.chronicle.set.ChronicleSetBuilder;
+
+/*
+  Factory for every SetBackend we benchmark. Used directly as a JMH @Param so a
+  single benchmark class can run all workloads against each backend.
+ */
+public enum SetBackendType {
+  CHRONICLE {
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey) {
+      return new ChronicleSetBackend<>(keyClass, entries, averageKey);
+    }
+
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey, StorageType storage) {
+      return new ChronicleSetBackend<>(ChronicleSetBackend.builder(keyClass, entries, averageKey), storage);
+    }
+
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, CardinalityEstimate estimate) {
+      return new ChronicleSetBackend<>(ChronicleSetBackend.builder(keyClass, estimate));
+    }
+
+    @Override
+    public SetBackend<Record> createRecordSet(RecordCodec codec, long entries, Record averageKey) {
+      return new ChronicleSetBackend<>(ChronicleSetBuilder.of(Record.class)
+          .keyMarshaller(new RecordMarshaller(codec))
+          .averageKey(averageKey)
+          .entries(entries));
+    }
+
+    @Override
+    public <K> SetBackend<K> createConcurrent(Class<K> keyClass, long entries, K averageKey, int concurrency) {
+      return new ChronicleSetBackend<>(ChronicleSetBackend.builder(keyClass, entries, averageKey).actualSegments(concurrency));
+    }
+  },
+  // CHRONICLE growing past its entries hint, see GrowableChronicleSet
+  GROWABLE_CHRONICLE {
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey) {
+      return create(keyClass, entries, averageKey, StorageType.MEMORY);
+    }
+
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey, StorageType storage) {
+      return new GrowableChronicleSet<>(keyClass, entries, averageKey, storage);
+    }
+
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, CardinalityEstimate estimate) {
+      return new GrowableChronicleSet<>(n -> new ChronicleSetBackend<>(ChronicleSetBackend.builder(keyClass,
+          new CardinalityEstimate(n, estimate.averageKeyBytes()))), estimate.distinct());
+    }
+
+    @Override
+    public SetBackend<Record> createRecordSet(RecordCodec codec, long entries, Record averageKey) {
+      return new GrowableChronicleSet<>(n -> new ChronicleSetBackend<>(ChronicleSetBuilder.of(Record.class)
+          .keyMarshaller(new RecordMarshaller(codec))
+          .averageKey(averageKey)
+          .entries(n)), entries);
+    }
+  },
+  MAPDB {
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey) {
+      return new MapDBSetBackend<>(keyClass);
+    }
+
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey, StorageType storage) {
+      return new MapDBSetBackend<>(MapDBSetBackend.serializerFor(keyClass), storage);
+    }
+
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, CardinalityEstimate estimate) {
+      return new MapDBSetBackend<>(MapDBSetBackend.serializerFor(keyClass), estimate.mapDBAllocation());
+    }
+
+    @Override
+    public SetBackend<Record> createRecordSet(RecordCodec codec, long entries, Record averageKey) {
+      return new MapDBSetBackend<>(new RecordSerializer(codec));
+    }
+
+    @Override
+    public <K> SetBackend<K> createConcurrent(Class<K> keyClass, long entries, K averageKey, int concurrency) {
+      return new MapDBSetBackend<>(MapDBSetBackend.serializerFor(keyClass), concurrency);
+    }
+  },
+  HASHSET {
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey) {
+      return new HashSetBackend<>();
+    }
+  },
+  CONCURRENT_HASHSET {
+    @Override
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey) {
+      return new HashSetBackend<>(ConcurrentHashMap.newKeySet());
+    }
+
+    @Override
+    public <K> SetBackend<K> createConcurrent(Class<K> keyClass, long entries, K averageKey, int concurrency) {
+      return create(keyClass, entries, averageKey);
+    }
+  },
+  OFFHEAP {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey) {
+      if (keyClass == Integer.class) {
+        return (SetBackend<K>) new OffHeapIntSet(entries);
+      }
+      if (keyClass == Long.class) {
+        return (SetBackend<K>) new OffHeapLongSet(entries);
+      }
+      if (keyClass == String.class) {
+        return (SetBackend<K>) new OffHeapStringSet(entries);
+      }
+      if (keyClass == byte[].class) {
+        return (SetBackend<K>) new OffHeapByteArraySet(entries);
+      }
+      throw new IllegalArgumentException("OFFHEAP backend does not support keys of " + keyClass);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey, MemoryReservation reservation) {
+      if (keyClass == Integer.class) {
+        return (SetBackend<K>) new OffHeapIntSet(entries, reservation);
+      }
+      if (keyClass == Long.class) {
+        return (SetBackend<K>) new OffHeapLongSet(entries, reservation);
+      }
+      if (keyClass == String.class) {
+        return (SetBackend<K>) new OffHeapStringSet(entries, reservation);
+      }
+      if (keyClass == byte[].class) {
+        return (SetBackend<K>) new OffHeapByteArraySet(entries, reservation);
+      }
+      throw new IllegalArgumentException("OFFHEAP backend does not support keys of " + keyClass);
+    }
+
+    @Override
+    public IntSetBackend createIntSet(long entries, StorageType storage) {
+      checkMemory(storage);
+      return new OffHeapIntSet(entries);
+    }
+
+    @Override
+    public IntSetBackend createIntSet(long entries, MemoryReservation reservation) {
+      return new OffHeapIntSet(entries, reservation);
+    }
+
+    @Override
+    public ByteArraySetBackend createByteArraySet(long entries, byte[] averageKey) {
+      return new OffHeapByteArraySet(entries);
+    }
+
+    @Override
+    public SetBackend<Record> createRecordSet(RecordCodec codec, long entries, Record averageKey) {
+      return new OffHeapRecordSet(codec, entries);
+    }
+  },
+  // int keys only, compressed bitmap for dense domains such as dictionary ids, see OffHeapBitmapSet
+  BITMAP {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey) {
+      if (keyClass == Integer.class) {
+        return (SetBackend<K>) new OffHeapBitmapSet();
+      }
+      throw new IllegalArgumentException("BITMAP backend does not support keys of " + keyClass);
+    }
+
+    @Override
+    public IntSetBackend createIntSet(long entries, StorageType storage) {
+      checkMemory(storage);
+      return new OffHeapBitmapSet();
+    }
+  };
+
+  /*
+    entries is the expected number of distinct keys, averageKey a sample key of
+    average size for variable length keys (null for fixed width keys). Backends
+    which size themselves dynamically ignore both.
+   */
+  public abstract <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey);
+
+  // backends without MMAP support reject it rather than silently running in memory
+  public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey, StorageType storage) {
+    checkMemory(storage);
+    return create(keyClass, entries, averageKey);
+  }
+
+  // sized from a CardinalityEstimate of the input instead of a guessed upper bound
+  public <K> SetBackend<K> create(Class<K> keyClass, CardinalityEstimate estimate) {
+    return create(keyClass, estimate.entries(), null);
+  }
+
+  /*
+    Set charging its native memory to reservation, e.g. a MemoryBudget.Query. OFFHEAP
+    sets reserve before every allocation, other backends are wrapped in a BudgetedSet.
+   */
+  public <K> SetBackend<K> create(Class<K> keyClass, long entries, K averageKey, MemoryReservation reservation) {
+    return new BudgetedSet<>(create(keyClass, entries, averageKey), reservation);
+  }
+
+  // rebuilds a set from a KeyBlock, sized for the keys and key bytes of the block
+  public <K> SetBackend<K> importSet(Class<K> keyClass, ByteBuffer block) {
+    int count = KeyBlock.count(block);
+    SetBackend<K> set = create(keyClass, new CardinalityEstimate(count, KeyBlock.dataBytes(block) / Math.max(1.0, count)));
+    try {
+      set.importKeys(block, keyClass);
+    } catch (RuntimeException e) {
+      set.close();
+      throw e;
+    }
+    return set;
+  }
+
+  void checkMemory(StorageType storage) {
+    if (storage != StorageType.MEMORY) {
+      throw new IllegalArgumentException(this + " backend does not support " + storage + " storage");
+    }
+  }
+
+  // int keys without boxing where the backend supports it
+  public IntSetBackend createIntSet(long entries) {
+    return createIntSet(entries, StorageType.MEMORY);
+  }
+
+  public IntSetBackend createIntSet(long entries, StorageType storage) {
+    return new BoxedIntSetBackend(create(Integer.class, entries, null, storage));
+  }
+
+  public IntSetBackend createIntSet(long entries, MemoryReservation reservation) {
+    return new BoxedIntSetBackend(create(Integer.class, entries, null, reservation));
+  }
+
+  // byte[] keys with block inserts, see ByteArraySetBackend.addAll
+  public ByteArraySetBackend createByteArraySet(long entries, byte[] averageKey) {
+    return new BoxedByteArraySetBackend(create(byte[].class, entries, averageKey));
+  }
+
+  /*
+    Set safe for concurrent add and contains. concurrency is the number of
+    segments (Chronicle) or lock stripes (MapDB); backends which are not thread
+    safe are wrapped in a SynchronizedSetBackend and ignore it.
+   */
+  public <K> SetBackend<K> createConcurrent(Class<K> keyClass, long entries, K averageKey, int concurrency) {
+    return new SynchronizedSetBackend<>(create(keyClass, entries, averageKey));
+  }
+
+  // Record keys in the RecordCodec row layout instead of java serialization
+  public SetBackend<Record> createRecordSet(RecordCodec codec, long entries, Record averageKey) {
+    return create(Record.class, entries, averageKey);
+  }
+}
@@ -0,0 +1,189 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/*
+  Parallel merge of partial DISTINCT sets, e.g. one per segment, into one set
+  Runs in two phases on a ForkJoinPool. First every input is scanned by one task
+  which scatters its keys into one buffer per partition by hash (int[] for int
+  sets, native key bytes for the others), then every partition is built by one
+  task from its buffers of all inputs. No two partitions share a key, so neither
+  phase takes a lock, and the result is a PartitionedSet.
+  Inputs are only read and stay open. Each partition is sized for the sum of its
+  buffers, exact for disjoint inputs and an upper bound with overlap.
+ */
+public final class SetMerge {
+  private static final int MIN_BUFFER = 16;
+
+  private SetMerge() {
+  }
+
+  // next power of two of 4 partitions per worker, so unevenly filled partitions still balance
+  public static int partitionsFor(ForkJoinPool pool) {
+    return Integer.highestOneBit(pool.getParallelism() * 4 - 1) << 1;
+  }
+
+  public static PartitionedIntSet mergeInts(List<? extends IntSetBackend> inputs, SetBackendType type,
+                                            int partitions, ForkJoinPool pool) {
+    int shift = PartitionedSet.shiftFor(partitions);
+    IntBuffers[] buffers = new IntBuffers[inputs.size()];
+    List<ForkJoinTask<?>> scatter = new ArrayList<>();
+    for (int i = 0; i < inputs.size(); i++) {
+      IntSetBackend input = inputs.get(i);
+      IntBuffers inputBuffers = new IntBuffers(partitions, shift, input.size());
+      buffers[i] = inputBuffers;
+      scatter.add(ForkJoinTask.adapt(() -> input.forEach(inputBuffers)));
+    }
+    invokeAll(pool, scatter);
+
+    IntSetBackend[] result = new IntSetBackend[partitions];
+    List<ForkJoinTask<?>> build = new ArrayList<>();
+    for (int p = 0; p < partitions; p++) {
+      int partition = p;
+      build.add(ForkJoinTask.adapt(() -> {
+        long entries = 0;
+        for (IntBuffers inputBuffers : buffers) {
+          entries += inputBuffers._counts[partition];
+        }
+        IntSetBackend set = type.createIntSet(Math.max(1, entries));
+        result[partition] = set;
+        for (IntBuffers inputBuffers : buffers) {
+          set.addAll(inputBuffers._keys[partition], inputBuffers._counts[partition]);
+          inputBuffers._keys[partition] = null;
+        }
+      }));
+    }
+    PartitionedIntSet merged = new PartitionedIntSet(result);
+    try {
+      invokeAll(pool, build);
+    } catch (RuntimeException e) {
+      merged.close();
+      throw e;
+    }
+    return merged;
+  }
+
+  /*
+    Integer, Long, String and byte[] keys, scattered in the byte form of forEachBytes
+    into native buffers (KeyBlock.Collector) and added to the partitions with
+    addKeyBytes, so keys of off-heap inputs and results never become java objects.
+   */
+  public static <K> PartitionedSet<K> merge(List<? extends SetBackend<K>> inputs, Class<K> keyClass, K averageKey,
+                                            SetBackendType type, int partitions, ForkJoinPool pool) {
+    int shift = PartitionedSet.shiftFor(partitions);
+    KeyBuffers[] buffers = new KeyBuffers[inputs.size()];
+    SetBackend<K>[] result = newPartitions(partitions);
+    PartitionedSet<K> merged = new PartitionedSet<>(result);
+    try {
+      List<ForkJoinTask<?>> scatter = new ArrayList<>();
+      for (int i = 0; i < inputs.size(); i++) {
+        SetBackend<K> input = inputs.get(i);
+        KeyBuffers inputBuffers = new KeyBuffers(keyClass, partitions, shift, input.size());
+        buffers[i] = inputBuffers;
+        scatter.add(ForkJoinTask.adapt(() -> input.forEachBytes(inputBuffers)));
+      }
+      invokeAll(pool, scatter);
+
+      List<ForkJoinTask<?>> build = new ArrayList<>();
+      for (int p = 0; p < partitions; p++) {
+        int partition = p;
+        build.add(ForkJoinTask.adapt(() -> {
+          long entries = 0;
+          for (KeyBuffers inputBuffers : buffers) {
+            entries += inputBuffers._keys[partition].count();
+          }
+          SetBackend<K> set = type.create(keyClass, Math.max(1, entries), averageKey);
+          result[partition] = set;
+          for (KeyBuffers inputBuffers : buffers) {
+            KeyBlock.Collector keys = inputBuffers._keys[partition];
+            keys.forEach((base, offset, length) -> set.addKeyBytes(base, offset, length, keyClass));
+            keys.free();
+          }
+        }));
+      }
+      invokeAll(pool, build);
+    } catch (RuntimeException e) {
+      merged.close();
+      throw e;
+    } finally {
+      for (KeyBuffers inputBuffers : buffers) {
+        if (inputBuffers != null) {
+          inputBuffers.free();
+        }
+      }
+    }
+    return merged;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K> SetBackend<K>[] newPartitions(int partitions) {
+    return (SetBackend<K>[]) new SetBackend<?>[partitions];
+  }
+
+  private static int initialCapacity(long inputSize, int partitions) {
+    return (int) Math.max(MIN_BUFFER, inputSize / partitions * 5 / 4);
+  }
+
+  // runs tasks on pool and waits for all of them, rethrowing the first failure
+  private static void invokeAll(ForkJoinPool pool, List<ForkJoinTask<?>> tasks) {
+    pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+  }
+
+  // int keys of one input, one growable buffer per partition
+  private static final class IntBuffers implements IntConsumer {
+    private final int[][] _keys;
+    private final int[] _counts;
+    private final int _shift;
+
+    IntBuffers(int partitions, int shift, long inputSize) {
+      _keys = new int[partitions][initialCapacity(inputSize, partitions)];
+      _counts = new int[partitions];
+      _shift = shift;
+    }
+
+    @Override
+    public void accept(int key) {
+      int p = PartitionedSet.partitionOf(key, _shift);
+      if (_counts[p] == _keys[p].length) {
+        _keys[p] = Arrays.copyOf(_keys[p], _keys[p].length * 2);
+      }
+      _keys[p][_counts[p]++] = key;
+    }
+  }
+
+  // key bytes of one input, one native buffer per partition
+  private static final class KeyBuffers implements BytesConsumer {
+    private static final int BYTES_PER_KEY = 16; // initial guess, the buffers grow
+
+    private final KeyBlock.Collector[] _keys;
+    private final Class<?> _keyClass;
+    private final int _shift;
+
+    KeyBuffers(Class<?> keyClass, int partitions, int shift, long inputSize) {
+      long keys = initialCapacity(inputSize, partitions);
+      _keys = new KeyBlock.Collector[partitions];
+      for (int p = 0; p < partitions; p++) {
+        _keys[p] = new KeyBlock.Collector(keys * BYTES_PER_KEY, (keys + 1) * Integer.BYTES);
+      }
+      _keyClass = keyClass;
+      _shift = shift;
+    }
+
+    @Override
+    public void accept(Object base, long offset, int length) {
+      int p = PartitionedSet.partitionOf(PartitionedSet.hashBytes(_keyClass, base, offset, length), _shift);
+      _keys[p].accept(base, offset, length);
+    }
+
+    void free() {
+      for (KeyBlock.Collector keys : _keys) {
+        keys.free();
+      }
+    }
+  }
+}
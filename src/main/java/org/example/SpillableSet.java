@@ -0,0 +1,152 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/*
+  Set which starts as an on-heap HashSet and moves its keys to an off-heap
+  SetBackend once it holds more than spillEntries keys or an estimated spillBytes
+  of heap. Small sets never pay the fixed cost of creating an off-heap set, large
+  ones leave the heap before they put pressure on GC.
+  The off-heap set is created with offHeapEntries as its size hint, which Chronicle
+  treats as an upper bound.
+  byte[] keys are held in the HashSet as ByteBuffer.wrap views, so they compare by
+  content as they do off heap and a DISTINCT does not depend on when the set spilled.
+ */
+public class SpillableSet<K> implements SetBackend<K> {
+  // rough heap cost of a HashSet entry: HashMap.Node plus its share of the table
+  private static final long ENTRY_OVERHEAD_BYTES = 48;
+  private static final long BYTE_BUFFER_BYTES = 48; // HeapByteBuffer wrapping a byte[] key
+
+  private final Class<K> _keyClass;
+  private final SetBackendType _offHeapType;
+  private final long _spillEntries;
+  private final long _spillBytes;
+  private final long _offHeapEntries;
+  private final K _averageKey;
+
+  private final boolean _wrapKeys; // byte[] keys, held as ByteBuffer in _heapSet
+  private Set<Object> _heapSet = new HashSet<>();
+  private long _heapBytes;
+  private SetBackend<K> _offHeapSet;
+
+  public SpillableSet(Class<K> keyClass, SetBackendType offHeapType, long spillEntries, long spillBytes,
+      long offHeapEntries, K averageKey) {
+    _keyClass = keyClass;
+    _offHeapType = offHeapType;
+    _spillEntries = spillEntries;
+    _spillBytes = spillBytes;
+    _offHeapEntries = offHeapEntries;
+    _averageKey = averageKey;
+    _wrapKeys = keyClass == byte[].class;
+  }
+
+  private Object heapKey(K key) {
+    return _wrapKeys ? ByteBuffer.wrap((byte[]) key) : key;
+  }
+
+  @SuppressWarnings("unchecked")
+  private K key(Object heapKey) {
+    return (K) (_wrapKeys ? ((ByteBuffer) heapKey).array() : heapKey);
+  }
+
+  // estimated heap bytes for key in a HashSet, object headers included
+  static long estimateHeapBytes(Object key) {
+    if (key instanceof String) {
+      return ENTRY_OVERHEAD_BYTES + 40 + ((String) key).length() * 2L;
+    }
+    if (key instanceof byte[]) {
+      return ENTRY_OVERHEAD_BYTES + BYTE_BUFFER_BYTES + 16 + ((byte[]) key).length;
+    }
+    if (key instanceof Record) {
+      long bytes = ENTRY_OVERHEAD_BYTES + 32;
+      for (Object value : ((Record) key).getValues()) {
+        bytes += 8 + (value instanceof String ? 40 + ((String) value).length() * 2L : 24);
+      }
+      return bytes;
+    }
+    return ENTRY_OVERHEAD_BYTES + 16; // boxed primitive
+  }
+
+  public boolean isSpilled() {
+    return _offHeapSet != null;
+  }
+
+  private void spill() {
+    _offHeapSet = _offHeapType.create(_keyClass, Math.max(_offHeapEntries, _heapSet.size()), _averageKey);
+    for (Object key : _heapSet) {
+      _offHeapSet.add(key(key));
+    }
+    _heapSet = null;
+    _heapBytes = 0;
+  }
+
+  @Override
+  public boolean add(K key) {
+    if (_offHeapSet != null) {
+      return _offHeapSet.add(key);
+    }
+    if (!_heapSet.add(heapKey(key))) {
+      return false;
+    }
+    _heapBytes += estimateHeapBytes(key);
+    if (_heapSet.size() > _spillEntries || _heapBytes > _spillBytes) {
+      spill();
+    }
+    return true;
+  }
+
+  @Override
+  public boolean contains(K key) {
+    return _offHeapSet != null ? _offHeapSet.contains(key) : _heapSet.contains(heapKey(key));
+  }
+
+  @Override
+  public Iterator<K> iterator() {
+    if (_offHeapSet != null) {
+      return _offHeapSet.iterator();
+    }
+    Iterator<Object> it = _heapSet.iterator();
+    return new Iterator<K>() {
+      @Override
+      public boolean hasNext() {
+        return it.hasNext();
+      }
+
+      @Override
+      public K next() {
+        return key(it.next());
+      }
+    };
+  }
+
+  @Override
+  public void forEachBytes(BytesConsumer consumer) {
+    if (_offHeapSet != null) {
+      _offHeapSet.forEachBytes(consumer);
+    } else {
+      SetBackend.super.forEachBytes(consumer);
+    }
+  }
+
+  @Override
+  public long size() {
+    return _offHeapSet != null ? _offHeapSet.size() : _heapSet.size();
+  }
+
+  @Override
+  public long memoryUsed() {
+    return _offHeapSet != null ? _offHeapSet.memoryUsed() : 0;
+  }
+
+  @Override
+  public void close() {
+    if (_offHeapSet != null) {
+      _offHeapSet.close();
+    } else {
+      _heapSet.clear();
+    }
+  }
+}
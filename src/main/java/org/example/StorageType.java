@@ -0,0 +1,30 @@
+package org.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/*
+  Where a set keeps its data
+  MEMORY  native memory (ChronicleSetBuilder.create(), DBMaker.memoryDirectDB())
+  MMAP    memory mapped file, so the OS can page the set out when it outgrows RAM
+          (ChronicleSetBuilder.createPersistedTo(), DBMaker.fileDB().fileMmapEnable())
+  MMAP files go to the directory in the offheap.mmap.dir system property, or to
+  java.io.tmpdir, and are deleted when the set is closed. Point it at a disk backed
+  directory, a tmpfs directory is RAM again.
+ */
+public enum StorageType {
+  MEMORY,
+  MMAP;
+
+  static File newFile(String prefix) {
+    File dir = new File(System.getProperty("offheap.mmap.dir", System.getProperty("java.io.tmpdir")));
+    try {
+      File file = File.createTempFile(prefix, ".dat", dir);
+      file.delete(); // only the unique name is needed, the library creates the file
+      return file;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create set file in " + dir, e);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package org.example;
+
+import java.util.Iterator;
+
+/*
+  Makes any SetBackend safe for concurrent add and contains with a single lock
+  Used as the concurrent baseline for backends which are not thread safe themselves.
+  iterator() is not guarded and must not run concurrently with writers.
+ */
+public class SynchronizedSetBackend<K> implements SetBackend<K> {
+  private final SetBackend<K> _set;
+
+  public SynchronizedSetBackend(SetBackend<K> set) {
+    _set = set;
+  }
+
+  @Override
+  public synchronized boolean add(K key) {
+    return _set.add(key);
+  }
+
+  @Override
+  public synchronized boolean contains(K key) {
+    return _set.contains(key);
+  }
+
+  @Override
+  public Iterator<K> iterator() {
+    return _set.iterator();
+  }
+
+  @Override
+  public synchronized void forEachBytes(BytesConsumer consumer) {
+    _set.forEachBytes(consumer);
+  }
+
+  @Override
+  public synchronized long size() {
+    return _set.size();
+  }
+
+  @Override
+  public synchronized long memoryUsed() {
+    return _set.memoryUsed();
+  }
+
+  @Override
+  public synchronized void close() {
+    _set.close();
+  }
+}
@@ -0,0 +1,149 @@
+package org.example;
+
+import java.util.Arrays;
+
+/*
+  DISTINCT int keys with ORDER BY key [DESC] LIMIT k, in O(k) memory
+  Only the current top k distinct keys are kept: an OffHeapIntSet of k keys for the
+  duplicate check and a binary heap of the same keys on heap, worst key at the
+  root. The root is the boundary: a key which does not beat it is rejected by one
+  comparison, before it is hashed or touches the set, so once the heap is full most
+  rows of a large scan cost no hash work. A key which beats it replaces the root
+  and the evicted key is removed from the set, which therefore never grows past k.
+  canImprove() tells a scan whose remaining input is bounded (sorted input, or
+  segment min/max statistics) that it can stop early.
+  DESC keys are kept in the heap as ~key, which reverses int order, so both
+  directions share the ascending code. Not thread safe.
+ */
+public class TopKDistinct implements AutoCloseable {
+  private final int _limit;
+  private final boolean _descending;
+  private final OffHeapIntSet _set;
+  private final int[] _heap; // max heap of the kept keys in ascending order space, _heap[0] is the boundary
+  private int _size;
+  private long _rejected;
+  private long _evicted;
+
+  public TopKDistinct(int limit, boolean descending) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("LIMIT must be positive: " + limit);
+    }
+    _limit = limit;
+    _descending = descending;
+    // one more than the limit: a new key is added before the evicted one is removed
+    _set = new OffHeapIntSet(limit + 1);
+    _heap = new int[limit];
+  }
+
+  private int ordered(int key) {
+    return _descending ? ~key : key;
+  }
+
+  /*
+    Offers one input key and returns true when it entered the top k. Rejected keys
+    are either not better than the boundary or already kept.
+   */
+  public boolean offer(int key) {
+    int ordered = ordered(key);
+    boolean full = _size == _limit;
+    if (full && ordered >= _heap[0]) {
+      _rejected++;
+      return false;
+    }
+    if (!_set.add(key)) {
+      return false;
+    }
+    if (full) {
+      _set.remove(ordered(_heap[0]));
+      _evicted++;
+      _heap[0] = ordered;
+      siftDown(0);
+    } else {
+      _heap[_size] = ordered;
+      siftUp(_size++);
+    }
+    return true;
+  }
+
+  /*
+    False once no key at or after best, the best key the rest of the input can
+    still hold (its min, or its max for DESC), would be accepted: the result is
+    final and the scan can stop.
+   */
+  public boolean canImprove(int best) {
+    return _size < _limit || ordered(best) < _heap[0];
+  }
+
+  private void siftUp(int index) {
+    int key = _heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (_heap[parent] >= key) {
+        break;
+      }
+      _heap[index] = _heap[parent];
+      index = parent;
+    }
+    _heap[index] = key;
+  }
+
+  private void siftDown(int index) {
+    int key = _heap[index];
+    int half = _size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      if (child + 1 < _size && _heap[child + 1] > _heap[child]) {
+        child++;
+      }
+      if (key >= _heap[child]) {
+        break;
+      }
+      _heap[index] = _heap[child];
+      index = child;
+    }
+    _heap[index] = key;
+  }
+
+  // the kept keys in ORDER BY order, at most limit of them
+  public int[] result() {
+    int[] result = Arrays.copyOf(_heap, _size);
+    Arrays.sort(result);
+    for (int i = 0; i < result.length; i++) {
+      result[i] = ordered(result[i]);
+    }
+    return result;
+  }
+
+  // the k-th key, valid once isFull()
+  public int boundary() {
+    return ordered(_heap[0]);
+  }
+
+  public boolean isFull() {
+    return _size == _limit;
+  }
+
+  public int size() {
+    return _size;
+  }
+
+  // keys dropped by the boundary comparison alone, without hashing
+  public long rejected() {
+    return _rejected;
+  }
+
+  // keys which entered the top k and were pushed out by a better one later
+  public long evicted() {
+    return _evicted;
+  }
+
+  // native bytes of the set, the heap adds 4 bytes per kept key on the java heap
+  public long memoryUsed() {
+    return _set.memoryUsed();
+  }
+
+  @Override
+  public void close() {
+    _set.close();
+  }
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import net.openhft.chronicle.core.Memory;
+
+/*
+  UTF-8 encoding of Strings straight into caller owned byte arrays, so set keys can
+  be hashed and compared as bytes without allocating per key
+ */
+final class Utf8 {
+  private Utf8() {
+  }
+
+  // upper bound of the encoded length, enough to size a buffer before encode
+  static int maxEncodedLength(String value) {
+    return value.length() * 3;
+  }
+
+  // exact encoded length, same rules as encode
+  static int encodedLength(String value) {
+    int length = value.length();
+    int bytes = 0;
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        bytes += 1;
+      } else if (c < 0x800) {
+        bytes += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+        bytes += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        bytes += 1;
+      } else {
+        bytes += 3;
+      }
+    }
+    return bytes;
+  }
+
+  // encodes value at out[offset] and returns the offset after the last byte written
+  static int encode(String value, byte[] out, int offset) {
+    int length = value.length();
+    int pos = offset;
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        out[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        out[pos++] = (byte) (0xC0 | (c >> 6));
+        out[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int cp = Character.toCodePoint(c, value.charAt(++i));
+        out[pos++] = (byte) (0xF0 | (cp >> 18));
+        out[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+        out[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        out[pos++] = (byte) (0x80 | (cp & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        out[pos++] = (byte) '?'; // unpaired surrogate, same replacement as String.getBytes
+      } else {
+        out[pos++] = (byte) (0xE0 | (c >> 12));
+        out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        out[pos++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return pos;
+  }
+
+  /*
+    value.hashCode() of the String whose encode() output is the length bytes at (base,
+    offset), Unsafe style, computed without decoding it. Equal to the hash of the
+    original String unless it held unpaired surrogates, which encode as '?'.
+   */
+  static int hashCode(Object base, long offset, int length) {
+    Memory memory = OffHeapVarKeySet.MEMORY;
+    long end = offset + length;
+    int h = 0;
+    for (long pos = offset; pos < end; ) {
+      int b = memory.readByte(base, pos) & 0xFF;
+      if (b < 0x80) {
+        h = 31 * h + b;
+        pos++;
+      } else if (b < 0xE0) {
+        h = 31 * h + (((b & 0x1F) << 6) | (memory.readByte(base, pos + 1) & 0x3F));
+        pos += 2;
+      } else if (b < 0xF0) {
+        h = 31 * h + (((b & 0x0F) << 12) | ((memory.readByte(base, pos + 1) & 0x3F) << 6)
+            | (memory.readByte(base, pos + 2) & 0x3F));
+        pos += 3;
+      } else {
+        int cp = ((b & 0x07) << 18) | ((memory.readByte(base, pos + 1) & 0x3F) << 12)
+            | ((memory.readByte(base, pos + 2) & 0x3F) << 6) | (memory.readByte(base, pos + 3) & 0x3F);
+        h = 31 * h + Character.highSurrogate(cp);
+        h = 31 * h + Character.lowSurrogate(cp);
+        pos += 4;
+      }
+    }
+    return h;
+  }
+
+  /*
+    Chronicle's String format writes a supplementary character as two 3 byte
+    surrogates (ED A0..BF xx) where encode() writes one 4 byte sequence, and cannot
+    read 4 byte sequences back. These find the keys whose bytes differ between the two.
+   */
+  static boolean hasFourByteSequence(Object base, long offset, int length) {
+    for (long pos = offset, end = offset + length; pos < end; pos++) {
+      if ((OffHeapVarKeySet.MEMORY.readByte(base, pos) & 0xF8) == 0xF0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static boolean hasEncodedSurrogate(Object base, long offset, int length) {
+    Memory memory = OffHeapVarKeySet.MEMORY;
+    for (long pos = offset, end = offset + length - 1; pos < end; pos++) {
+      if ((memory.readByte(base, pos) & 0xFF) == 0xED && (memory.readByte(base, pos + 1) & 0xE0) == 0xA0) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
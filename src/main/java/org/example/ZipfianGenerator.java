@@ -0,0 +1,48 @@
+package org.example;
+
+import java.util.Random;
+
+/*
+  Zipf distributed ints in [0, n) after Gray et al., "Quickly Generating
+  Billion-Record Synthetic Databases", the same generator YCSB uses
+  Construction is O(n) to compute zeta(n), drawing is O(1).
+ */
+class ZipfianGenerator {
+  static final double THETA = 0.99;
+
+  private final int _n;
+  private final Random _random;
+  private final double _zetan;
+  private final double _alpha;
+  private final double _eta;
+  private final double _secondThreshold;
+
+  ZipfianGenerator(int n, Random random) {
+    _n = n;
+    _random = random;
+    _zetan = zeta(n);
+    _alpha = 1.0 / (1.0 - THETA);
+    _eta = (1 - Math.pow(2.0 / n, 1 - THETA)) / (1 - zeta(2) / _zetan);
+    _secondThreshold = 1 + Math.pow(0.5, THETA);
+  }
+
+  private static double zeta(int n) {
+    double sum = 0;
+    for (int i = 1; i <= n; i++) {
+      sum += 1 / Math.pow(i, THETA);
+    }
+    return sum;
+  }
+
+  int next() {
+    double u = _random.nextDouble();
+    double uz = u * _zetan;
+    if (uz < 1.0) {
+      return 0;
+    }
+    if (uz < _secondThreshold) {
+      return Math.min(1, _n - 1);
+    }
+    return Math.min(_n - 1, (int) (_n * Math.pow(_eta * u - _eta + 1, _alpha)));
+  }
+}